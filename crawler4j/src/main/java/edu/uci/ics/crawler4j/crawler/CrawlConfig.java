@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.http.Header;
 import org.apache.http.client.CookieStore;
@@ -29,7 +30,12 @@ import org.apache.http.conn.DnsResolver;
 import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 import org.apache.http.message.BasicHeader;
 
+import com.sleepycat.je.Durability;
+
 import edu.uci.ics.crawler4j.crawler.authentication.AuthInfo;
+import edu.uci.ics.crawler4j.fetcher.ContentDecodingEntity;
+import edu.uci.ics.crawler4j.parser.HtmlParserType;
+import edu.uci.ics.crawler4j.parser.LanguageDetection;
 
 public class CrawlConfig {
 
@@ -50,6 +56,54 @@ public class CrawlConfig {
      */
     private long dbLockTimeout = 500;
 
+    /**
+     * How far the transactions of a resumable crawl are written at commit time. With
+     * {@link Durability.SyncPolicy#SYNC} every commit is synced to disk. With the other
+     * policies commits are grouped, and the log is synced by a background thread.
+     */
+    private Durability.SyncPolicy commitSyncPolicy = Durability.SyncPolicy.SYNC;
+
+    /**
+     * Maximum time in milliseconds between two syncs of grouped commits.
+     */
+    private long groupCommitInterval = 10;
+
+    /**
+     * Number of scheduled URLs after which grouped commits are synced, even if the group
+     * commit interval has not elapsed yet.
+     */
+    private int groupCommitSize = 1000;
+
+    /**
+     * Whether the URL of the page on which a URL was found is stored along with it.
+     */
+    private boolean trackParentUrls = true;
+
+    /**
+     * Time in milliseconds between two checkpoints of the crawl counters to the statistics
+     * database, when crawling is resumable.
+     */
+    private long counterCheckpointInterval = 10000;
+
+    /**
+     * Expected number of distinct URLs of the crawl, used to size an in-memory filter of
+     * the URLs which have been seen. URLs which are not in the filter are known to be new
+     * without looking them up in the database. Set to 0 to disable the filter.
+     */
+    private int seenUrlFilterSize = 0;
+
+    /**
+     * Number of shards of the database which maps URLs to docids. Every shard has its own
+     * lock, so more shards let more crawler threads look up URLs at the same time.
+     */
+    private int docIdShards = 1;
+
+    /**
+     * Should the docid database be keyed on 64 bit fingerprints of the URLs instead of on
+     * the full URLs?
+     */
+    private boolean docIdFingerprintKeys = false;
+
     /**
      * Maximum depth of crawling For unlimited depth this parameter should be
      * set to -1
@@ -79,6 +133,24 @@ public class CrawlConfig {
      */
     private int politenessDelay = 200;
 
+    /**
+     * Should the frontier keep a separate queue for every host? If enabled, URLs are handed
+     * out in rotation over the hosts, and only from hosts whose politeness delay has elapsed.
+     */
+    private boolean hostPartitionedFrontier = false;
+
+    /**
+     * Should the frontier of a non-resumable crawl be kept in memory instead of in the
+     * database? Only the first {@link #inMemoryFrontierSize} URLs are kept in memory, the
+     * rest is spilled to sorted files in the crawl storage folder.
+     */
+    private boolean inMemoryFrontier = false;
+
+    /**
+     * Maximum number of URLs which the in-memory frontier keeps in memory.
+     */
+    private int inMemoryFrontierSize = 100000;
+
     /**
      * Should we also crawl https pages?
      */
@@ -119,12 +191,103 @@ public class CrawlConfig {
      */
     private int maxOutgoingLinksToFollow = 5000;
 
+    /**
+     * Max number of canonical outgoing urls which are cached, shared by all the crawler
+     * threads. Set to 0 to disable the cache.
+     */
+    private int canonicalUrlCacheSize = 0;
+
     /**
      * Max allowed size of a page. Pages larger than this size will not be
      * fetched.
      */
     private int maxDownloadSize = 1048576;
 
+    /**
+     * Should compressed (gzip or deflate encoded) content be asked for?
+     */
+    private boolean contentCompression = true;
+
+    /**
+     * Should brotli encoded content be asked for as well?
+     */
+    private boolean brotliCompression = false;
+
+    /**
+     * Max ratio of the decoded size of compressed content to its size on the wire, or 0 for
+     * no limit.
+     */
+    private int maxDecompressionRatio = 100;
+
+    /**
+     * Whether html pages are parsed while they are downloaded, instead of being read into
+     * memory first.
+     */
+    private boolean streamingParse = false;
+
+    /**
+     * Whether the raw content of html pages which are parsed while they are downloaded is
+     * kept, see {@link Page#getContentData()}.
+     */
+    private boolean retainContentData = true;
+
+    /**
+     * Whether only the outgoing links and meta tags of html pages are extracted, without
+     * their text.
+     */
+    private boolean linksOnlyParse = false;
+
+    /**
+     * The parser which is used for html pages.
+     */
+    private HtmlParserType htmlParserType = HtmlParserType.TIKA;
+
+    /**
+     * Max number of characters of the text of an html page which are collected, or -1 for
+     * no limit.
+     */
+    private int maxTextLength = -1;
+
+    /**
+     * Names of the attributes of links which are kept with the outgoing urls, or null to keep
+     * all of them.
+     */
+    private Set<String> linkAttributes = null;
+
+    /**
+     * When the language of html pages is identified.
+     */
+    private LanguageDetection languageDetection = LanguageDetection.EAGER;
+
+    /**
+     * Max number of characters at the beginning of the text of a page which are used to
+     * identify its language, or 0 to use the whole text.
+     */
+    private int languageDetectionMaxLength = 0;
+
+    /**
+     * Should the memory allocated and the garbage collections while parsing pages be measured?
+     */
+    private boolean collectParseMetrics = false;
+
+    /**
+     * Should pages which were fetched in previous crawls only be downloaded again if they have
+     * changed, according to the ETag and Last-Modified headers they were served with?
+     */
+    private boolean conditionalGet = false;
+
+    /**
+     * Should pages whose content is the same as that of a page which was fetched before be
+     * skipped?
+     */
+    private boolean deduplicateContent = false;
+
+    /**
+     * Max number of bits in which the SimHash fingerprints of the content of two pages may
+     * differ for them to be near duplicates, or -1 to only skip exact duplicates.
+     */
+    private int nearDuplicateDistance = -1;
+
     /**
      * Should we follow redirects?
      */
@@ -242,6 +405,64 @@ public class CrawlConfig {
         if (maxDepthOfCrawling > Short.MAX_VALUE) {
             throw new Exception("Maximum value for crawl depth is " + Short.MAX_VALUE);
         }
+        if (seenUrlFilterSize < 0) {
+            throw new Exception("Invalid value for seen URL filter size: " + seenUrlFilterSize);
+        }
+        if (docIdShards < 1) {
+            throw new Exception("Invalid value for number of docid shards: " + docIdShards);
+        }
+        if (commitSyncPolicy == null) {
+            throw new Exception("Commit sync policy is not set in the CrawlConfig.");
+        }
+        if (groupCommitInterval < 0) {
+            throw new Exception("Invalid value for group commit interval: " + groupCommitInterval);
+        }
+        if (counterCheckpointInterval <= 0) {
+            throw new Exception(
+                "Invalid value for counter checkpoint interval: " + counterCheckpointInterval);
+        }
+        if (htmlParserType == null) {
+            throw new Exception("Html parser type is not set in the CrawlConfig.");
+        }
+        if (maxTextLength < -1) {
+            throw new Exception("Invalid value for max text length: " + maxTextLength);
+        }
+        if (languageDetection == null) {
+            throw new Exception("Language detection is not set in the CrawlConfig.");
+        }
+        if (languageDetectionMaxLength < 0) {
+            throw new Exception(
+                "Invalid value for language detection max length: " + languageDetectionMaxLength);
+        }
+        if (brotliCompression && !ContentDecodingEntity.isBrotliSupported()) {
+            throw new Exception(
+                "Brotli compression needs the org.brotli:dec library on the classpath.");
+        }
+        if (maxDecompressionRatio < 0) {
+            throw new Exception(
+                "Invalid value for max decompression ratio: " + maxDecompressionRatio);
+        }
+        if ((nearDuplicateDistance < -1) || (nearDuplicateDistance > 3)) {
+            throw new Exception(
+                "Invalid value for near duplicate distance: " + nearDuplicateDistance);
+        }
+        if (canonicalUrlCacheSize < 0) {
+            throw new Exception(
+                "Invalid value for canonical url cache size: " + canonicalUrlCacheSize);
+        }
+        if (inMemoryFrontier) {
+            if (resumableCrawling) {
+                throw new Exception("The in-memory frontier can not be used for resumable crawls.");
+            }
+            if (hostPartitionedFrontier) {
+                throw new Exception(
+                    "The in-memory frontier can not be combined with a host partitioned frontier.");
+            }
+            if (inMemoryFrontierSize < 1) {
+                throw new Exception(
+                    "Invalid value for in-memory frontier size: " + inMemoryFrontierSize);
+            }
+        }
     }
 
     public String getCrawlStorageFolder() {
@@ -286,6 +507,126 @@ public class CrawlConfig {
         return this.dbLockTimeout;
     }
 
+    public Durability.SyncPolicy getCommitSyncPolicy() {
+        return commitSyncPolicy;
+    }
+
+    /**
+     * Sets how far the transactions of a resumable crawl are written at commit time. The
+     * default {@link Durability.SyncPolicy#SYNC} syncs every commit to disk. With
+     * {@link Durability.SyncPolicy#WRITE_NO_SYNC} or {@link Durability.SyncPolicy#NO_SYNC}
+     * commits are cheap, and a background thread syncs them in groups, every
+     * {@link #getGroupCommitInterval()} milliseconds or {@link #getGroupCommitSize()}
+     * scheduled URLs. A crash may then lose the commits of the last group.
+     *
+     * @param commitSyncPolicy the sync policy of commits
+     */
+    public void setCommitSyncPolicy(Durability.SyncPolicy commitSyncPolicy) {
+        this.commitSyncPolicy = commitSyncPolicy;
+    }
+
+    public long getGroupCommitInterval() {
+        return groupCommitInterval;
+    }
+
+    /**
+     * @param groupCommitInterval Maximum time in milliseconds between two syncs of grouped
+     *                            commits, or 0 to only sync based on the group commit size
+     */
+    public void setGroupCommitInterval(long groupCommitInterval) {
+        this.groupCommitInterval = groupCommitInterval;
+    }
+
+    public int getGroupCommitSize() {
+        return groupCommitSize;
+    }
+
+    /**
+     * @param groupCommitSize Number of scheduled URLs after which grouped commits are synced
+     */
+    public void setGroupCommitSize(int groupCommitSize) {
+        this.groupCommitSize = groupCommitSize;
+    }
+
+    public boolean isTrackParentUrls() {
+        return trackParentUrls;
+    }
+
+    /**
+     * By default every scheduled URL carries the URL of its parent page, which is returned
+     * by {@link edu.uci.ics.crawler4j.url.WebURL#getParentUrl()}. When this is disabled, only
+     * the docid of the parent page is kept, which makes the frontier considerably smaller,
+     * and getParentUrl() returns null.
+     *
+     * @param trackParentUrls Whether the parent URL of scheduled URLs should be stored
+     */
+    public void setTrackParentUrls(boolean trackParentUrls) {
+        this.trackParentUrls = trackParentUrls;
+    }
+
+    public long getCounterCheckpointInterval() {
+        return counterCheckpointInterval;
+    }
+
+    /**
+     * Counters such as the number of scheduled and processed pages are kept in memory and
+     * written to the statistics database periodically. If a resumable crawl is terminated
+     * unexpectedly, the increments since the last checkpoint are lost.
+     *
+     * @param counterCheckpointInterval Time in milliseconds between two checkpoints
+     */
+    public void setCounterCheckpointInterval(long counterCheckpointInterval) {
+        this.counterCheckpointInterval = counterCheckpointInterval;
+    }
+
+    public int getSeenUrlFilterSize() {
+        return seenUrlFilterSize;
+    }
+
+    /**
+     * Enables an in-memory filter of the URLs which have been seen, sized for the expected
+     * number of distinct URLs of the crawl. It takes about 1.2 bytes per expected URL. Most
+     * new URLs are then recognized as new without a database lookup. Once more URLs than
+     * expected have been seen, the filter becomes less effective but stays correct.
+     *
+     * @param seenUrlFilterSize Expected number of distinct URLs, or 0 to disable the filter
+     */
+    public void setSeenUrlFilterSize(int seenUrlFilterSize) {
+        this.seenUrlFilterSize = seenUrlFilterSize;
+    }
+
+    public int getDocIdShards() {
+        return docIdShards;
+    }
+
+    /**
+     * Spreads the URLs over this many databases, each with its own lock, so that crawler
+     * threads do not all wait for the same lock when they look up or assign docids. A resumed
+     * crawl keeps the number of shards of the previous crawl, whatever this setting is.
+     *
+     * @param docIdShards Number of shards of the docid database
+     */
+    public void setDocIdShards(int docIdShards) {
+        this.docIdShards = docIdShards;
+    }
+
+    public boolean isDocIdFingerprintKeys() {
+        return docIdFingerprintKeys;
+    }
+
+    /**
+     * Keys the docid database on 64 bit fingerprints of the URLs instead of on the full
+     * URLs, which makes the database several times smaller for large crawls. URLs with the
+     * same fingerprint are told apart by 32 more bits of their hash, and are then stored
+     * with their full URL. A resumed crawl keeps the keys of the previous crawl, whatever this
+     * setting is.
+     *
+     * @param docIdFingerprintKeys Should fingerprints be used as keys of the docid database?
+     */
+    public void setDocIdFingerprintKeys(boolean docIdFingerprintKeys) {
+        this.docIdFingerprintKeys = docIdFingerprintKeys;
+    }
+
     public int getMaxDepthOfCrawling() {
         return maxDepthOfCrawling;
     }
@@ -364,6 +705,48 @@ public class CrawlConfig {
         this.politenessDelay = politenessDelay;
     }
 
+    public boolean isHostPartitionedFrontier() {
+        return hostPartitionedFrontier;
+    }
+
+    /**
+     * Should the frontier keep a separate queue for every host? If enabled, URLs are handed
+     * out in rotation over the hosts, and only from hosts whose politeness delay has elapsed,
+     * so that a single big site does not dominate the work of all crawler threads.
+     *
+     * @param hostPartitionedFrontier Should the frontier have a queue per host?
+     */
+    public void setHostPartitionedFrontier(boolean hostPartitionedFrontier) {
+        this.hostPartitionedFrontier = hostPartitionedFrontier;
+    }
+
+    public boolean isInMemoryFrontier() {
+        return inMemoryFrontier;
+    }
+
+    /**
+     * Should the frontier of a non-resumable crawl be kept in memory instead of in the
+     * database? Once it holds more than {@link #getInMemoryFrontierSize()} URLs, the URLs
+     * which would be crawled last are spilled to sorted files in the crawl storage folder.
+     *
+     * @param inMemoryFrontier Should the frontier be kept in memory?
+     */
+    public void setInMemoryFrontier(boolean inMemoryFrontier) {
+        this.inMemoryFrontier = inMemoryFrontier;
+    }
+
+    public int getInMemoryFrontierSize() {
+        return inMemoryFrontierSize;
+    }
+
+    /**
+     * @param inMemoryFrontierSize Maximum number of URLs which the in-memory frontier keeps
+     *                             in memory before spilling to disk
+     */
+    public void setInMemoryFrontierSize(int inMemoryFrontierSize) {
+        this.inMemoryFrontierSize = inMemoryFrontierSize;
+    }
+
     public boolean isIncludeHttpsPages() {
         return includeHttpsPages;
     }
@@ -454,6 +837,21 @@ public class CrawlConfig {
         this.maxOutgoingLinksToFollow = maxOutgoingLinksToFollow;
     }
 
+    public int getCanonicalUrlCacheSize() {
+        return canonicalUrlCacheSize;
+    }
+
+    /**
+     * Pages of the same site tend to link to the same urls, which are canonicalized again on
+     * every page. The canonical forms can be cached by the scheme, host and directory of the
+     * page, so that they are computed once per directory.
+     *
+     * @param canonicalUrlCacheSize Max number of cached canonical urls, or 0 to disable the cache
+     */
+    public void setCanonicalUrlCacheSize(int canonicalUrlCacheSize) {
+        this.canonicalUrlCacheSize = canonicalUrlCacheSize;
+    }
+
     public int getMaxDownloadSize() {
         return maxDownloadSize;
     }
@@ -466,6 +864,241 @@ public class CrawlConfig {
         this.maxDownloadSize = maxDownloadSize;
     }
 
+    public boolean isContentCompression() {
+        return contentCompression;
+    }
+
+    /**
+     * Compressed content saves bandwidth at the cost of decompressing it. Content which is
+     * compressed anyway by a server is decoded regardless of this setting. An Accept-Encoding
+     * header in {@link #setDefaultHeaders(Collection)} takes precedence.
+     *
+     * @param contentCompression Should compressed (gzip or deflate encoded) content be asked
+     *                           for?
+     */
+    public void setContentCompression(boolean contentCompression) {
+        this.contentCompression = contentCompression;
+    }
+
+    public boolean isBrotliCompression() {
+        return brotliCompression;
+    }
+
+    /**
+     * Brotli encoded content is usually smaller than gzip encoded content. Decoding it needs
+     * the org.brotli:dec library on the classpath.
+     *
+     * @param brotliCompression Should brotli encoded content be asked for as well?
+     */
+    public void setBrotliCompression(boolean brotliCompression) {
+        this.brotliCompression = brotliCompression;
+    }
+
+    public int getMaxDecompressionRatio() {
+        return maxDecompressionRatio;
+    }
+
+    /**
+     * Html typically compresses 5 to 10 times, while decompression bombs are small responses
+     * which decompress into huge contents. Content which decompresses beyond the ratio is not
+     * read any further, and is handled as a content fetch error. The decoded content is
+     * limited to {@link #getMaxDownloadSize()} bytes in any case.
+     *
+     * @param maxDecompressionRatio Max ratio of the decoded size of compressed content to its
+     *                              size on the wire, or 0 for no limit
+     */
+    public void setMaxDecompressionRatio(int maxDecompressionRatio) {
+        this.maxDecompressionRatio = maxDecompressionRatio;
+    }
+
+    public boolean isStreamingParse() {
+        return streamingParse;
+    }
+
+    /**
+     * Html pages are normally read into memory before they are parsed. When they are
+     * streamed into the parser instead, the outgoing links are available as soon as the page
+     * has been downloaded and fewer copies of the content are made.
+     *
+     * @param streamingParse Whether html pages are parsed while they are downloaded
+     */
+    public void setStreamingParse(boolean streamingParse) {
+        this.streamingParse = streamingParse;
+    }
+
+    public boolean isRetainContentData() {
+        return retainContentData;
+    }
+
+    /**
+     * Only applies to html pages which are parsed while they are downloaded. If the raw
+     * content is not retained, {@link Page#getContentData()} and
+     * {@link edu.uci.ics.crawler4j.parser.HtmlParseData#getHtml()} return null for them.
+     *
+     * @param retainContentData Whether the raw content of streamed html pages is kept
+     */
+    public void setRetainContentData(boolean retainContentData) {
+        this.retainContentData = retainContentData;
+    }
+
+    public boolean isLinksOnlyParse() {
+        return linksOnlyParse;
+    }
+
+    /**
+     * Crawlers which only follow links don't need the text of the pages. When only the links
+     * are extracted, {@link edu.uci.ics.crawler4j.parser.HtmlParseData#getText()} is empty and
+     * the language of html pages is not identified.
+     *
+     * @param linksOnlyParse Whether the text of html pages is skipped while parsing them
+     */
+    public void setLinksOnlyParse(boolean linksOnlyParse) {
+        this.linksOnlyParse = linksOnlyParse;
+    }
+
+    public HtmlParserType getHtmlParserType() {
+        return htmlParserType;
+    }
+
+    /**
+     * Html pages are parsed with Tika by default. Crawls which mostly need the outgoing links
+     * of the pages can use a much lighter parser, which only scans their tags, see
+     * {@link edu.uci.ics.crawler4j.parser.LightweightHtmlContentParser}.
+     *
+     * @param htmlParserType The parser which is used for html pages
+     */
+    public void setHtmlParserType(HtmlParserType htmlParserType) {
+        this.htmlParserType = htmlParserType;
+    }
+
+    public int getMaxTextLength() {
+        return maxTextLength;
+    }
+
+    /**
+     * @param maxTextLength Max number of characters of the text of an html page which are
+     *                      collected, or -1 for no limit
+     */
+    public void setMaxTextLength(int maxTextLength) {
+        this.maxTextLength = maxTextLength;
+    }
+
+    public Set<String> getLinkAttributes() {
+        return linkAttributes;
+    }
+
+    /**
+     * All the attributes of the links of a page are kept with its outgoing urls by default,
+     * see {@link edu.uci.ics.crawler4j.url.WebURL#getAttributes()}. Crawls which only look at
+     * a few of them, such as "rel", can keep just those. The "rel" attribute is always kept
+     * when nofollow links are respected, see {@link #isRespectNoFollow()}.
+     *
+     * @param linkAttributes Names of the attributes of links which are kept, or null to keep
+     *                       all of them
+     */
+    public void setLinkAttributes(Set<String> linkAttributes) {
+        this.linkAttributes = linkAttributes;
+    }
+
+    public LanguageDetection getLanguageDetection() {
+        return languageDetection;
+    }
+
+    /**
+     * Identifying the language of every page takes a noticeable share of the parsing time.
+     * It can be turned off, or deferred until {@link Page#getLanguage()} is called, so that
+     * only the pages whose language is needed pay for it.
+     *
+     * @param languageDetection When the language of html pages is identified
+     */
+    public void setLanguageDetection(LanguageDetection languageDetection) {
+        this.languageDetection = languageDetection;
+    }
+
+    public int getLanguageDetectionMaxLength() {
+        return languageDetectionMaxLength;
+    }
+
+    /**
+     * The beginning of a text is usually enough to identify its language.
+     *
+     * @param languageDetectionMaxLength Max number of characters used to identify the language
+     *                                   of a page, or 0 to use its whole text
+     */
+    public void setLanguageDetectionMaxLength(int languageDetectionMaxLength) {
+        this.languageDetectionMaxLength = languageDetectionMaxLength;
+    }
+
+    public boolean isCollectParseMetrics() {
+        return collectParseMetrics;
+    }
+
+    /**
+     * The metrics of each crawler thread are available from
+     * {@link edu.uci.ics.crawler4j.parser.Parser#getParseMetrics()}, and the totals are logged
+     * when the crawl finishes. Measuring them costs a few calls to the management beans of the
+     * JVM for every page.
+     *
+     * @param collectParseMetrics Should the memory allocated and the garbage collections while
+     *                            parsing pages be measured?
+     */
+    public void setCollectParseMetrics(boolean collectParseMetrics) {
+        this.collectParseMetrics = collectParseMetrics;
+    }
+
+    public boolean isConditionalGet() {
+        return conditionalGet;
+    }
+
+    /**
+     * The validators of the fetched pages are kept in the "validators" folder of the crawl
+     * storage folder, which is kept between crawls even if they are not resumable. Pages which
+     * have not changed since they were last fetched are passed to
+     * {@link WebCrawler#onPageNotModified(Page)} instead of being parsed and visited.
+     *
+     * @param conditionalGet Should pages which were fetched in previous crawls only be
+     *                       downloaded again if they have changed?
+     */
+    public void setConditionalGet(boolean conditionalGet) {
+        this.conditionalGet = conditionalGet;
+    }
+
+    public boolean isDeduplicateContent() {
+        return deduplicateContent;
+    }
+
+    /**
+     * Mirrors and URLs with session ids often serve the same content. With deduplication,
+     * the content of every fetched page is hashed, and pages whose content has been fetched
+     * before are passed to {@link WebCrawler#onDuplicateContent(Page, int)} instead of being
+     * parsed and visited. Html pages which are parsed while they are streamed, see
+     * {@link #setStreamingParse(boolean)}, are not checked.
+     *
+     * @param deduplicateContent Should pages whose content is the same as that of a page which
+     *                           was fetched before be skipped?
+     */
+    public void setDeduplicateContent(boolean deduplicateContent) {
+        this.deduplicateContent = deduplicateContent;
+    }
+
+    public int getNearDuplicateDistance() {
+        return nearDuplicateDistance;
+    }
+
+    /**
+     * Pages whose content differs little from that of a page which was fetched before, e.g.
+     * by a date or a counter, can be skipped as well when content is deduplicated. Looking
+     * for them takes a few lookups in the index of the content of the crawl for every page.
+     *
+     * @param nearDuplicateDistance Max number of bits, at most 3, in which the SimHash
+     *                              fingerprints of the content of two pages may differ for
+     *                              them to be near duplicates, or -1 to only skip exact
+     *                              duplicates
+     */
+    public void setNearDuplicateDistance(int nearDuplicateDistance) {
+        this.nearDuplicateDistance = nearDuplicateDistance;
+    }
+
     public boolean isFollowRedirects() {
         return followRedirects;
     }
@@ -648,9 +1281,20 @@ public class CrawlConfig {
         StringBuilder sb = new StringBuilder();
         sb.append("Crawl storage folder: " + getCrawlStorageFolder() + "\n");
         sb.append("Resumable crawling: " + isResumableCrawling() + "\n");
+        sb.append("Commit sync policy: " + getCommitSyncPolicy() + "\n");
+        sb.append("Group commit interval: " + getGroupCommitInterval() + "\n");
+        sb.append("Group commit size: " + getGroupCommitSize() + "\n");
+        sb.append("Track parent URLs: " + isTrackParentUrls() + "\n");
+        sb.append("Counter checkpoint interval: " + getCounterCheckpointInterval() + "\n");
+        sb.append("Seen URL filter size: " + getSeenUrlFilterSize() + "\n");
+        sb.append("DocID shards: " + getDocIdShards() + "\n");
+        sb.append("DocID fingerprint keys: " + isDocIdFingerprintKeys() + "\n");
         sb.append("Max depth of crawl: " + getMaxDepthOfCrawling() + "\n");
         sb.append("Max pages to fetch: " + getMaxPagesToFetch() + "\n");
         sb.append("User agent string: " + getUserAgentString() + "\n");
+        sb.append("Host partitioned frontier: " + isHostPartitionedFrontier() + "\n");
+        sb.append("In-memory frontier: " + isInMemoryFrontier() + "\n");
+        sb.append("In-memory frontier size: " + getInMemoryFrontierSize() + "\n");
         sb.append("Include https pages: " + isIncludeHttpsPages() + "\n");
         sb.append("Include binary content: " + isIncludeBinaryContentInCrawling() + "\n");
         sb.append("Max connections per host: " + getMaxConnectionsPerHost() + "\n");
@@ -658,7 +1302,23 @@ public class CrawlConfig {
         sb.append("Socket timeout: " + getSocketTimeout() + "\n");
         sb.append("Max total connections: " + getMaxTotalConnections() + "\n");
         sb.append("Max outgoing links to follow: " + getMaxOutgoingLinksToFollow() + "\n");
+        sb.append("Canonical URL cache size: " + getCanonicalUrlCacheSize() + "\n");
         sb.append("Max download size: " + getMaxDownloadSize() + "\n");
+        sb.append("Content compression: " + isContentCompression() + "\n");
+        sb.append("Brotli compression: " + isBrotliCompression() + "\n");
+        sb.append("Max decompression ratio: " + getMaxDecompressionRatio() + "\n");
+        sb.append("Streaming parse: " + isStreamingParse() + "\n");
+        sb.append("Retain content data: " + isRetainContentData() + "\n");
+        sb.append("Links only parse: " + isLinksOnlyParse() + "\n");
+        sb.append("Html parser type: " + getHtmlParserType() + "\n");
+        sb.append("Max text length: " + getMaxTextLength() + "\n");
+        sb.append("Link attributes: " + getLinkAttributes() + "\n");
+        sb.append("Language detection: " + getLanguageDetection() + "\n");
+        sb.append("Language detection max length: " + getLanguageDetectionMaxLength() + "\n");
+        sb.append("Collect parse metrics: " + isCollectParseMetrics() + "\n");
+        sb.append("Conditional get: " + isConditionalGet() + "\n");
+        sb.append("Deduplicate content: " + isDeduplicateContent() + "\n");
+        sb.append("Near duplicate distance: " + getNearDuplicateDistance() + "\n");
         sb.append("Should follow redirects?: " + isFollowRedirects() + "\n");
         sb.append("Proxy host: " + getProxyHost() + "\n");
         sb.append("Proxy port: " + getProxyPort() + "\n");
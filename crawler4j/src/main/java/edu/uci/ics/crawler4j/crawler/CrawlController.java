@@ -25,13 +25,18 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sleepycat.je.Durability;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
+import edu.uci.ics.crawler4j.fetcher.ValidatorStore;
+import edu.uci.ics.crawler4j.frontier.ContentHashIndex;
 import edu.uci.ics.crawler4j.frontier.DocIDServer;
 import edu.uci.ics.crawler4j.frontier.Frontier;
+import edu.uci.ics.crawler4j.parser.ParseMetrics;
 import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
+import edu.uci.ics.crawler4j.url.CanonicalURLCache;
 import edu.uci.ics.crawler4j.url.TLDList;
 import edu.uci.ics.crawler4j.url.URLCanonicalizer;
 import edu.uci.ics.crawler4j.url.WebURL;
@@ -75,6 +80,22 @@ public class CrawlController extends Configurable {
     protected Frontier frontier;
     protected DocIDServer docIdServer;
 
+    /**
+     * Index of the content of the fetched pages, or null if content is not deduplicated.
+     */
+    protected ContentHashIndex contentHashIndex;
+
+    /**
+     * Cache of canonical outgoing urls shared by the crawlers, or null if it is disabled.
+     */
+    protected CanonicalURLCache canonicalURLCache;
+
+    /**
+     * Validators of the pages fetched by this and previous crawls, or null if conditional
+     * requests are disabled.
+     */
+    protected ValidatorStore validatorStore;
+
     protected final Object waitingLock = new Object();
     protected final Environment env;
 
@@ -103,6 +124,13 @@ public class CrawlController extends Configurable {
         envConfig.setTransactional(resumable);
         envConfig.setLocking(resumable);
         envConfig.setLockTimeout(config.getDbLockTimeout(), TimeUnit.MILLISECONDS);
+        // Other environments of the crawl, such as the validator store, use the same cache
+        envConfig.setSharedCache(true);
+        if (resumable) {
+            envConfig.setDurability(
+                new Durability(config.getCommitSyncPolicy(), Durability.SyncPolicy.NO_SYNC,
+                               Durability.ReplicaAckPolicy.NONE));
+        }
 
         File envHome = new File(config.getCrawlStorageFolder() + "/frontier");
         if (!envHome.exists()) {
@@ -123,9 +151,23 @@ public class CrawlController extends Configurable {
         env = new Environment(envHome, envConfig);
         docIdServer = new DocIDServer(env, config);
         frontier = new Frontier(env, config);
+        if (config.isDeduplicateContent()) {
+            contentHashIndex = new ContentHashIndex(env, config);
+        }
 
         this.pageFetcher = pageFetcher;
         this.robotstxtServer = robotstxtServer;
+        pageFetcher.setRobotstxtServer(robotstxtServer);
+        if (config.isConditionalGet()) {
+            validatorStore =
+                new ValidatorStore(new File(config.getCrawlStorageFolder() + "/validators"));
+            pageFetcher.setValidatorStore(validatorStore);
+        }
+        frontier.setRobotstxtServer(robotstxtServer);
+
+        if (config.getCanonicalUrlCacheSize() > 0) {
+            canonicalURLCache = new CanonicalURLCache(config.getCanonicalUrlCacheSize());
+        }
 
         finished = false;
         shuttingDown = false;
@@ -307,9 +349,13 @@ public class CrawlController extends Configurable {
                                         // At this step, frontier notifies the threads that were
                                         // waiting for new URLs and they should stop
                                         frontier.finish();
+                                        ParseMetrics parseMetrics = new ParseMetrics();
                                         for (T crawler : crawlers) {
                                             crawler.onBeforeExit();
                                             crawlersLocalData.add(crawler.getMyLocalData());
+                                            if (crawler.getParseMetrics() != null) {
+                                                parseMetrics.add(crawler.getParseMetrics());
+                                            }
                                         }
 
                                         logger.info(
@@ -317,8 +363,29 @@ public class CrawlController extends Configurable {
                                             " seconds before final clean up...");
                                         sleep(config.getCleanupDelaySeconds());
 
+                                        if (canonicalURLCache != null) {
+                                            logger.info(
+                                                "Canonical URL cache hit rate: {}",
+                                                String.format("%.3f",
+                                                    canonicalURLCache.getHitRate()));
+                                        }
+                                        if (contentHashIndex != null) {
+                                            logger.info(
+                                                "Duplicate pages: {}, with {} bytes not parsed",
+                                                frontier.getNumberOfDuplicatePages(),
+                                                frontier.getNumberOfDuplicateBytes());
+                                        }
+                                        if (config.isCollectParseMetrics()) {
+                                            logger.info("Parse metrics: {}", parseMetrics);
+                                        }
                                         frontier.close();
                                         docIdServer.close();
+                                        if (contentHashIndex != null) {
+                                            contentHashIndex.close();
+                                        }
+                                        if (validatorStore != null) {
+                                            validatorStore.close();
+                                        }
                                         pageFetcher.shutDown();
 
                                         finished = true;
@@ -483,6 +550,7 @@ public class CrawlController extends Configurable {
 
     public void setPageFetcher(PageFetcher pageFetcher) {
         this.pageFetcher = pageFetcher;
+        pageFetcher.setRobotstxtServer(robotstxtServer);
     }
 
     public RobotstxtServer getRobotstxtServer() {
@@ -491,6 +559,8 @@ public class CrawlController extends Configurable {
 
     public void setRobotstxtServer(RobotstxtServer robotstxtServer) {
         this.robotstxtServer = robotstxtServer;
+        pageFetcher.setRobotstxtServer(robotstxtServer);
+        frontier.setRobotstxtServer(robotstxtServer);
     }
 
     public Frontier getFrontier() {
@@ -499,16 +569,37 @@ public class CrawlController extends Configurable {
 
     public void setFrontier(Frontier frontier) {
         this.frontier = frontier;
+        frontier.setRobotstxtServer(robotstxtServer);
     }
 
     public DocIDServer getDocIdServer() {
         return docIdServer;
     }
 
+    /**
+     * @return the index of the content of the fetched pages, or null if
+     *         {@link CrawlConfig#isDeduplicateContent()} is not set
+     */
+    public ContentHashIndex getContentHashIndex() {
+        return contentHashIndex;
+    }
+
     public void setDocIdServer(DocIDServer docIdServer) {
         this.docIdServer = docIdServer;
     }
 
+    public CanonicalURLCache getCanonicalURLCache() {
+        return canonicalURLCache;
+    }
+
+    /**
+     * @return the validators of the fetched pages, or null if
+     *         {@link CrawlConfig#isConditionalGet()} is not set
+     */
+    public ValidatorStore getValidatorStore() {
+        return validatorStore;
+    }
+
     /**
      * @deprecated implements a factory {@link WebCrawlerFactory} and inject your cutom data as
      * shown <a href="https://github.com/yasserg/crawler4j#using-a-factory">here</a> .
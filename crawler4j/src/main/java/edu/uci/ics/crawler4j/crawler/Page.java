@@ -20,6 +20,7 @@ package edu.uci.ics.crawler4j.crawler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.function.Supplier;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -30,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import edu.uci.ics.crawler4j.parser.ParseData;
 import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.Util;
 
 /**
  * This class contains the data for a fetched and parsed page.
@@ -88,6 +90,11 @@ public class Page {
      */
     private String language;
 
+    /**
+     * Identifies the language of the content, if it is identified on first access
+     */
+    private Supplier<String> languageSupplier;
+
     /**
      * Headers which were present in the response of the fetch request
      */
@@ -103,6 +110,94 @@ public class Page {
      */
     protected boolean truncated = false;
 
+    /**
+     * The not yet consumed content of this page, if it is loaded as a stream
+     */
+    protected InputStream contentStream;
+
+    /**
+     * A stream over the content of an entity, which stops at the maximum download size and
+     * optionally keeps a copy of the bytes that have been read. The copy becomes the content
+     * data of the page when the stream is closed.
+     */
+    private class ContentStream extends InputStream {
+        private final InputStream in;
+        private final int maxBytes;
+        private final ByteArrayBuffer copy;
+        private int count = 0;
+        private boolean closed = false;
+
+        ContentStream(InputStream in, int maxBytes, ByteArrayBuffer copy) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+            this.copy = copy;
+        }
+
+        /**
+         * @return the number of bytes which may still be read, or -1 at the maximum size
+         */
+        private int remaining(int len) throws IOException {
+            if (maxBytes <= 0) {
+                return len;
+            }
+            if (count < maxBytes) {
+                return Math.min(len, maxBytes - count);
+            }
+            if (!truncated && (in.read() != -1)) {
+                truncated = true;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining(1) < 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+                if (copy != null) {
+                    copy.append(b);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = remaining(len);
+            if (n < 0) {
+                return -1;
+            }
+            n = in.read(b, off, n);
+            if (n > 0) {
+                count += n;
+                if (copy != null) {
+                    copy.append(b, off, n);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            contentStream = null;
+            if (copy != null) {
+                contentData = (copy.length() == copy.capacity()) ? copy.buffer() :
+                              copy.toByteArray();
+            }
+            in.close();
+        }
+    }
+
     public Page(WebURL url) {
         this.url = url;
     }
@@ -149,6 +244,10 @@ public class Page {
                     break;
                 }
             }
+            if (buffer.length() == buffer.capacity()) {
+                // The announced content length was right, no need to copy the buffer
+                return buffer.buffer();
+            }
             return buffer.toByteArray();
         }
     }
@@ -161,7 +260,43 @@ public class Page {
      * @throws Exception when load fails
      */
     public void load(HttpEntity entity, int maxBytes) throws Exception {
+        loadMetadata(entity);
+        contentData = toByteArray(entity, maxBytes);
+    }
 
+    /**
+     * Loads the content of this page from a fetched HttpEntity, keeping the content of html
+     * pages as a stream which is consumed by the parser. Other pages are loaded as by
+     * {@link #load(HttpEntity, int)}.
+     *
+     * @param entity HttpEntity
+     * @param maxBytes The maximum number of bytes to read
+     * @param retainContentData Whether the content data of html pages is kept once the stream
+     *                          has been consumed and closed
+     * @throws Exception when load fails
+     */
+    public void loadStreaming(HttpEntity entity, int maxBytes, boolean retainContentData)
+        throws Exception {
+        loadMetadata(entity);
+        if (Util.hasBinaryContent(contentType) || Util.hasPlainTextContent(contentType)) {
+            contentData = toByteArray(entity, maxBytes);
+            return;
+        }
+
+        contentData = null;
+        ByteArrayBuffer copy = null;
+        if (retainContentData) {
+            int size = (int) entity.getContentLength();
+            int initialLength = (size > 0) ? size : 4096;
+            if (maxBytes > 0) {
+                initialLength = Math.min(initialLength, maxBytes);
+            }
+            copy = new ByteArrayBuffer(initialLength);
+        }
+        contentStream = new ContentStream(entity.getContent(), maxBytes, copy);
+    }
+
+    private void loadMetadata(HttpEntity entity) {
         contentType = null;
         Header type = entity.getContentType();
         if (type != null) {
@@ -185,8 +320,6 @@ public class Page {
         if (charset != null) {
             contentCharset = charset.displayName();
         }
-
-        contentData = toByteArray(entity, maxBytes);
     }
 
     public WebURL getWebURL() {
@@ -256,6 +389,15 @@ public class Page {
         this.contentData = contentData;
     }
 
+    /**
+     * @return the content of this page as a stream, if it has been loaded as a stream and has
+     *         not been consumed yet, or null. Closing the stream sets the content data of this
+     *         page, unless it is not retained.
+     */
+    public InputStream getContentStream() {
+        return contentStream;
+    }
+
     /**
      * @return ContentType of this page.
      * For example: "text/html; charset=UTF-8"
@@ -296,11 +438,25 @@ public class Page {
      * @return Language
      */
     public String getLanguage() {
+        if (languageSupplier != null) {
+            language = languageSupplier.get();
+            languageSupplier = null;
+        }
         return language;
     }
 
     public void setLanguage(String language) {
         this.language = language;
+        this.languageSupplier = null;
+    }
+
+    /**
+     * @param languageSupplier identifies the language of the content the first time it is
+     *                         asked for
+     */
+    public void setLanguageSupplier(Supplier<String> languageSupplier) {
+        this.language = null;
+        this.languageSupplier = languageSupplier;
     }
 
     public boolean isTruncated() {
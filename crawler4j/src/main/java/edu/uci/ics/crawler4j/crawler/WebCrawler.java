@@ -19,6 +19,7 @@ package edu.uci.ics.crawler4j.crawler;
 
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -32,11 +33,14 @@ import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
 import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
 import edu.uci.ics.crawler4j.fetcher.PageFetchResult;
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
+import edu.uci.ics.crawler4j.fetcher.ValidatorStore;
+import edu.uci.ics.crawler4j.frontier.ContentHashIndex;
 import edu.uci.ics.crawler4j.frontier.DocIDServer;
 import edu.uci.ics.crawler4j.frontier.Frontier;
 import edu.uci.ics.crawler4j.parser.HtmlParseData;
 import edu.uci.ics.crawler4j.parser.NotAllowedContentException;
 import edu.uci.ics.crawler4j.parser.ParseData;
+import edu.uci.ics.crawler4j.parser.ParseMetrics;
 import edu.uci.ics.crawler4j.parser.Parser;
 import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
 import edu.uci.ics.crawler4j.url.WebURL;
@@ -93,6 +97,16 @@ public class WebCrawler implements Runnable {
      */
     private Frontier frontier;
 
+    /**
+     * The validators of the fetched pages, or null if conditional requests are disabled.
+     */
+    private ValidatorStore validatorStore;
+
+    /**
+     * The index of the content of the fetched pages, or null if content is not deduplicated.
+     */
+    private ContentHashIndex contentHashIndex;
+
     /**
      * Is the current crawler instance waiting for new URLs? This field is
      * mainly used by the controller to detect whether all of the crawler
@@ -118,7 +132,10 @@ public class WebCrawler implements Runnable {
         this.robotstxtServer = crawlController.getRobotstxtServer();
         this.docIdServer = crawlController.getDocIdServer();
         this.frontier = crawlController.getFrontier();
-        this.parser = new Parser(crawlController.getConfig());
+        this.validatorStore = crawlController.getValidatorStore();
+        this.contentHashIndex = crawlController.getContentHashIndex();
+        this.parser =
+            new Parser(crawlController.getConfig(), crawlController.getCanonicalURLCache());
         this.myController = crawlController;
         this.isWaitingForNewURLs = false;
     }
@@ -201,6 +218,36 @@ public class WebCrawler implements Runnable {
         //Subclasses can override this to add their custom functionality
     }
 
+    /**
+     * This function is called if the crawler encounters a page which has not changed since it
+     * was fetched by a previous crawl, when conditional requests are enabled with
+     * {@link CrawlConfig#setConditionalGet(boolean)}. The page is neither parsed nor visited,
+     * so its links are not followed either.
+     *
+     * @param page Partial page object, with the 304 status code and the response headers
+     */
+    protected void onPageNotModified(Page page) {
+        logger.debug("Not modified: {}", page.getWebURL().getURL());
+        // Do nothing by default (except basic logging)
+        // Sub-classed can override this to add their custom functionality
+    }
+
+    /**
+     * This function is called if the content of a page is the same as, or nearly the same as,
+     * that of a page which was fetched before, when content is deduplicated with
+     * {@link CrawlConfig#setDeduplicateContent(boolean)}. The page is neither parsed nor
+     * visited, so its links are not followed either.
+     *
+     * @param page the fetched page, which is not parsed
+     * @param duplicateOfDocId the docid of the page which was fetched before
+     */
+    protected void onDuplicateContent(Page page, int duplicateOfDocId) {
+        logger.debug("Duplicate content of page {}: {}", duplicateOfDocId,
+                     page.getWebURL().getURL());
+        // Do nothing by default (except basic logging)
+        // Sub-classed can override this to add their custom functionality
+    }
+
     /**
      * This function is called if the crawler encountered an unexpected http status code ( a
      * status code other than 3xx)
@@ -280,6 +327,14 @@ public class WebCrawler implements Runnable {
         return null;
     }
 
+    /**
+     * @return the metrics of the pages parsed by this crawler, or null if
+     *         {@link CrawlConfig#isCollectParseMetrics()} is not set
+     */
+    public ParseMetrics getParseMetrics() {
+        return parser.getParseMetrics();
+    }
+
     @Override
     public void run() {
         onStart();
@@ -425,8 +480,11 @@ public class WebCrawler implements Runnable {
                         webURL.setAnchor(curURL.getAnchor());
                         if (shouldVisit(page, webURL)) {
                             if (!shouldFollowLinksIn(webURL) || robotstxtServer.allows(webURL)) {
-                                webURL.setDocid(docIdServer.getNewDocID(movedToUrl));
-                                frontier.schedule(webURL);
+                                // Another thread may have seen the same URL in the meantime
+                                if (!docIdServer.assignNewDocIds(
+                                    Collections.singletonList(webURL)).isEmpty()) {
+                                    frontier.schedule(webURL);
+                                }
                             } else {
                                 logger.debug(
                                     "Not visiting: {} as per the server's \"robots.txt\" policy",
@@ -437,6 +495,9 @@ public class WebCrawler implements Runnable {
                                          webURL.getURL());
                         }
                     }
+                } else if ((statusCode == HttpStatus.SC_NOT_MODIFIED) &&
+                           (validatorStore != null)) {
+                    onPageNotModified(page);
                 } else { // All other http codes other than 3xx & 200
                     String description =
                         EnglishReasonPhraseCatalog.INSTANCE.getReason(fetchResult.getStatusCode(),
@@ -450,6 +511,8 @@ public class WebCrawler implements Runnable {
                 }
 
             } else { // if status code is 200
+                // Validators are stored for the url which was asked for, even if it redirected
+                String requestedUrl = curURL.getURL();
                 if (!curURL.getURL().equals(fetchResult.getFetchedUrl())) {
                     if (docIdServer.isSeenBefore(fetchResult.getFetchedUrl())) {
                         logger.debug("Redirect page: {} has already been seen", curURL);
@@ -459,27 +522,49 @@ public class WebCrawler implements Runnable {
                     curURL.setDocid(docIdServer.getNewDocID(fetchResult.getFetchedUrl()));
                 }
 
-                if (!fetchResult.fetchContent(page,
-                                              myController.getConfig().getMaxDownloadSize())) {
+                CrawlConfig config = myController.getConfig();
+                if (!fetchResult.fetchContent(page, config.getMaxDownloadSize(),
+                                              config.isStreamingParse(),
+                                              config.isRetainContentData())) {
                     throw new ContentFetchException();
                 }
 
+                // Streamed content is only read while it is parsed, so it is not checked
+                byte[] content = page.getContentData();
+                if ((contentHashIndex != null) && (content != null) && (content.length > 0)) {
+                    int duplicateOfDocId =
+                        contentHashIndex.findDuplicate(curURL.getDocid(), content,
+                                                       page.getContentType());
+                    if (duplicateOfDocId > 0) {
+                        frontier.countDuplicate(content.length);
+                        onDuplicateContent(page, duplicateOfDocId);
+                        if (validatorStore != null) {
+                            validatorStore.put(requestedUrl, fetchResult.getResponseHeaders());
+                        }
+                        return;
+                    }
+                }
+
+                parser.parse(page, curURL.getURL());
+
+                // Streamed content is only known to be truncated once it has been parsed
                 if (page.isTruncated()) {
                     logger.warn(
                         "Warning: unknown page size exceeded max-download-size, truncated to: " +
                         "({}), at URL: {}",
-                        myController.getConfig().getMaxDownloadSize(), curURL.getURL());
+                        config.getMaxDownloadSize(), curURL.getURL());
                 }
 
-                parser.parse(page, curURL.getURL());
-
                 if (shouldFollowLinksIn(page.getWebURL())) {
                     ParseData parseData = page.getParseData();
-                    List<WebURL> toSchedule = new ArrayList<>();
+                    List<WebURL> newUrls = new ArrayList<>();
                     int maxCrawlDepth = myController.getConfig().getMaxDepthOfCrawling();
+                    boolean trackParentUrls = myController.getConfig().isTrackParentUrls();
                     for (WebURL webURL : parseData.getOutgoingUrls()) {
                         webURL.setParentDocid(curURL.getDocid());
-                        webURL.setParentUrl(curURL.getURL());
+                        if (trackParentUrls) {
+                            webURL.setParentUrl(curURL.getURL());
+                        }
                         int newdocid = docIdServer.getDocId(webURL.getURL());
                         if (newdocid > 0) {
                             // This is not the first time that this Url is visited. So, we set the
@@ -492,8 +577,7 @@ public class WebCrawler implements Runnable {
                             if ((maxCrawlDepth == -1) || (curURL.getDepth() < maxCrawlDepth)) {
                                 if (shouldVisit(page, webURL)) {
                                     if (robotstxtServer.allows(webURL)) {
-                                        webURL.setDocid(docIdServer.getNewDocID(webURL.getURL()));
-                                        toSchedule.add(webURL);
+                                        newUrls.add(webURL);
                                     } else {
                                         logger.debug(
                                             "Not visiting: {} as per the server's \"robots.txt\" " +
@@ -507,7 +591,8 @@ public class WebCrawler implements Runnable {
                             }
                         }
                     }
-                    frontier.scheduleAll(toSchedule);
+                    // Docids are only assigned to the links which are going to be crawled
+                    frontier.scheduleAll(docIdServer.assignNewDocIds(newUrls));
                 } else {
                     logger.debug("Not looking for links in page {}, "
                                  + "as per your \"shouldFollowLinksInPage\" policy",
@@ -524,6 +609,10 @@ public class WebCrawler implements Runnable {
                 if (!noIndex) {
                     visit(page);
                 }
+
+                if (validatorStore != null) {
+                    validatorStore.put(requestedUrl, fetchResult.getResponseHeaders());
+                }
             }
         } catch (PageBiggerThanMaxSizeException e) {
             onPageBiggerThanMaxSize(curURL.getURL(), e.getPageSize());
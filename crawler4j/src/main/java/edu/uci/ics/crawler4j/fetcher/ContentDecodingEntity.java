@@ -0,0 +1,293 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entity which decodes the content of a response according to its Content-Encoding header,
+ * and which counts the bytes read from the connection and the bytes of decoded content.
+ *
+ * Content is rejected with an {@link IOException} once its decoded size exceeds the given
+ * ratio to its encoded size, so that small responses which decompress into huge contents
+ * (decompression bombs) are not read any further. The ratio is only checked once some content
+ * has been decoded, as short contents compress unevenly.
+ *
+ * Brotli encoded content is decoded if the org.brotli:dec library is on the classpath.
+ * Content in an encoding which can not be decoded, such as the bogus "none" or "UTF-8" some
+ * servers send, is passed on as it is, with its Content-Encoding header.
+ */
+public class ContentDecodingEntity extends HttpEntityWrapper {
+    private static final Logger logger = LoggerFactory.getLogger(ContentDecodingEntity.class);
+
+    /** Decoded bytes from which the ratio of decoded to encoded bytes is checked */
+    private static final int MIN_DECODED_BYTES_FOR_RATIO = 64 * 1024;
+
+    private static final Constructor<? extends InputStream> brotliInputStream =
+        findBrotliInputStream();
+
+    /** Encodings which are decoded, none if the content is passed on as it is */
+    private final String[] encodings;
+    private final int maxRatio;
+
+    private long wireBytes = 0;
+    private long decodedBytes = 0;
+
+    private InputStream content;
+
+    /**
+     * @param entity the entity of the response, whose content is encoded
+     * @param maxRatio max ratio of decoded bytes to encoded bytes, or 0 for no limit
+     */
+    public ContentDecodingEntity(HttpEntity entity, int maxRatio) {
+        super(entity);
+        this.encodings = getEncodings(entity.getContentEncoding());
+        this.maxRatio = maxRatio;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends InputStream> findBrotliInputStream() {
+        try {
+            Class<?> clazz = Class.forName("org.brotli.dec.BrotliInputStream");
+            return ((Class<? extends InputStream>) clazz).getConstructor(InputStream.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether brotli encoded content can be decoded
+     */
+    public static boolean isBrotliSupported() {
+        return brotliInputStream != null;
+    }
+
+    /**
+     * @return the encodings of the content, in the order in which they were applied, or none
+     *         if any of them can not be decoded
+     */
+    private static String[] getEncodings(Header contentEncoding) {
+        if (contentEncoding == null) {
+            return new String[0];
+        }
+        HeaderElement[] elements = contentEncoding.getElements();
+        String[] encodings = new String[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            encodings[i] = elements[i].getName().toLowerCase(Locale.ROOT);
+            if (!isSupported(encodings[i])) {
+                logger.debug("Passing on content with unsupported encoding: {}",
+                             contentEncoding.getValue());
+                return new String[0];
+            }
+        }
+        return encodings;
+    }
+
+    private static boolean isSupported(String encoding) {
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+            case "deflate":
+            case "identity":
+                return true;
+            case "br":
+                return brotliInputStream != null;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isEncoded() {
+        for (String encoding : encodings) {
+            if (!"identity".equals(encoding)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InputStream decode(InputStream in, String encoding) throws IOException {
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in);
+            case "deflate":
+                return new DeflateInputStream(in);
+            case "br":
+                try {
+                    return brotliInputStream.newInstance(in);
+                } catch (InstantiationException | IllegalAccessException |
+                    InvocationTargetException e) {
+                    throw new IOException("Could not decode brotli content", e);
+                }
+            default:
+                return in;
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        if (content == null) {
+            content = new DecodingInputStream(wrappedEntity.getContent());
+        }
+        return content;
+    }
+
+    @Override
+    public long getContentLength() {
+        return isEncoded() ? -1 : super.getContentLength();
+    }
+
+    @Override
+    public Header getContentEncoding() {
+        // The content is not encoded any more once it has been decoded
+        return (encodings.length > 0) ? null : super.getContentEncoding();
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        try (InputStream in = getContent()) {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                outStream.write(buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes which have been read from the connection so far
+     */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    /**
+     * @return the number of bytes of decoded content which have been read so far
+     */
+    public long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    /**
+     * Counts the bytes read from the connection.
+     */
+    private class WireInputStream extends FilterInputStream {
+        WireInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                wireBytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                wireBytes += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Decodes the content when it is first read, so that responses which are discarded are
+     * not decoded at all, and counts the decoded bytes.
+     */
+    private class DecodingInputStream extends InputStream {
+        private final InputStream wire;
+        private InputStream decoded;
+
+        DecodingInputStream(InputStream wire) {
+            this.wire = new WireInputStream(wire);
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) {
+                InputStream in = wire;
+                for (int i = encodings.length - 1; i >= 0; i--) {
+                    in = decode(in, encodings[i]);
+                }
+                decoded = in;
+            }
+            return decoded;
+        }
+
+        private void count(long n) throws IOException {
+            decodedBytes += n;
+            if ((maxRatio > 0) && (decodedBytes > MIN_DECODED_BYTES_FOR_RATIO) &&
+                (decodedBytes > (maxRatio * wireBytes))) {
+                throw new IOException(
+                    "Decoded content exceeds " + maxRatio + " times its encoded size");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = decoded().read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = decoded().read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (decoded != null) ? decoded.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoded != null) {
+                decoded.close();
+            } else {
+                wire.close();
+            }
+        }
+    }
+}
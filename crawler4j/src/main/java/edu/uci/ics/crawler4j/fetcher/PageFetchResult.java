@@ -26,6 +26,7 @@ import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
 import edu.uci.ics.crawler4j.crawler.Page;
 
 /**
@@ -35,12 +36,29 @@ public class PageFetchResult {
 
     protected static final Logger logger = LoggerFactory.getLogger(PageFetchResult.class);
 
+    /** Default of {@link CrawlConfig#getMaxDecompressionRatio()} */
+    private static final int DEFAULT_MAX_DECOMPRESSION_RATIO = 100;
+
+    protected final int maxDecompressionRatio;
+
     protected int statusCode;
     protected HttpEntity entity = null;
     protected Header[] responseHeaders = null;
     protected String fetchedUrl = null;
     protected String movedToUrl = null;
 
+    public PageFetchResult() {
+        this(DEFAULT_MAX_DECOMPRESSION_RATIO);
+    }
+
+    /**
+     * @param maxDecompressionRatio max ratio of the decoded size of the content to its size on
+     *                              the wire, or 0 for no limit
+     */
+    public PageFetchResult(int maxDecompressionRatio) {
+        this.maxDecompressionRatio = maxDecompressionRatio;
+    }
+
     public int getStatusCode() {
         return statusCode;
     }
@@ -53,8 +71,16 @@ public class PageFetchResult {
         return entity;
     }
 
+    /**
+     * Sets the entity of the response, whose content is decoded by a
+     * {@link ContentDecodingEntity} as content compression is left to the fetcher.
+     */
     public void setEntity(HttpEntity entity) {
-        this.entity = entity;
+        if ((entity != null) && !(entity instanceof ContentDecodingEntity)) {
+            this.entity = new ContentDecodingEntity(entity, maxDecompressionRatio);
+        } else {
+            this.entity = entity;
+        }
     }
 
     public Header[] getResponseHeaders() {
@@ -74,9 +100,26 @@ public class PageFetchResult {
     }
 
     public boolean fetchContent(Page page, int maxBytes) throws SocketTimeoutException {
+        return fetchContent(page, maxBytes, false, true);
+    }
+
+    /**
+     * @param page the page to load the content into
+     * @param maxBytes the maximum number of bytes to read
+     * @param streaming whether the content of html pages is left to be read by the parser,
+     *                  see {@link Page#loadStreaming(HttpEntity, int, boolean)}
+     * @param retainContentData whether streamed content is kept as the content data of the page
+     * @return true if the content could be loaded
+     */
+    public boolean fetchContent(Page page, int maxBytes, boolean streaming,
+                                boolean retainContentData) throws SocketTimeoutException {
         try {
             page.setFetchResponseHeaders(responseHeaders);
-            page.load(entity, maxBytes);
+            if (streaming) {
+                page.loadStreaming(entity, maxBytes, retainContentData);
+            } else {
+                page.load(entity, maxBytes);
+            }
             return true;
         } catch (SocketTimeoutException e) {
             throw e;
@@ -102,6 +145,24 @@ public class PageFetchResult {
         }
     }
 
+    /**
+     * @return the number of bytes of the content which have been read from the connection so
+     *         far, or -1 if the response has no content
+     */
+    public long getWireBytes() {
+        return (entity instanceof ContentDecodingEntity) ?
+               ((ContentDecodingEntity) entity).getWireBytes() : -1;
+    }
+
+    /**
+     * @return the number of bytes of decoded content which have been read so far, or -1 if
+     *         the response has no content
+     */
+    public long getDecodedBytes() {
+        return (entity instanceof ContentDecodingEntity) ?
+               ((ContentDecodingEntity) entity).getDecodedBytes() : -1;
+    }
+
     public String getMovedToUrl() {
         return movedToUrl;
     }
@@ -23,7 +23,6 @@ import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +56,7 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.ssl.SSLContexts;
 import org.slf4j.Logger;
@@ -70,6 +70,7 @@ import edu.uci.ics.crawler4j.crawler.authentication.BasicAuthInfo;
 import edu.uci.ics.crawler4j.crawler.authentication.FormAuthInfo;
 import edu.uci.ics.crawler4j.crawler.authentication.NtAuthInfo;
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
 import edu.uci.ics.crawler4j.url.URLCanonicalizer;
 import edu.uci.ics.crawler4j.url.WebURL;
 
@@ -78,10 +79,27 @@ import edu.uci.ics.crawler4j.url.WebURL;
  */
 public class PageFetcher extends Configurable {
     protected static final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
+
+    /**
+     * @deprecated requests are no longer serialized: wait for the politeness delay of a host
+     * with {@link PolitenessTracker#acquire(String, long)} on {@link #politenessTracker}.
+     */
+    @Deprecated
     protected final Object mutex = new Object();
+
     protected PoolingHttpClientConnectionManager connectionManager;
     protected CloseableHttpClient httpClient;
+
+    /**
+     * @deprecated no longer updated, as the politeness delay is applied per host by
+     * {@link #politenessTracker}.
+     */
+    @Deprecated
     protected long lastFetchTime = 0;
+
+    protected final PolitenessTracker politenessTracker = new PolitenessTracker();
+    protected RobotstxtServer robotstxtServer = null;
+    protected ValidatorStore validatorStore = null;
     protected IdleConnectionMonitorThread connectionMonitorThread = null;
 
     public PageFetcher(CrawlConfig config) {
@@ -129,7 +147,9 @@ public class PageFetcher extends Configurable {
         clientBuilder.setDefaultRequestConfig(requestConfig);
         clientBuilder.setConnectionManager(connectionManager);
         clientBuilder.setUserAgent(config.getUserAgentString());
-        clientBuilder.setDefaultHeaders(config.getDefaultHeaders());
+        clientBuilder.setDefaultHeaders(getDefaultHeaders(config));
+        // Content is decoded by PageFetchResult.setEntity, which keeps track of its encoded size
+        clientBuilder.disableContentCompression();
 
         Map<AuthScope, Credentials> credentialsMap = new HashMap<>();
         if (config.getProxyHost() != null) {
@@ -178,6 +198,24 @@ public class PageFetcher extends Configurable {
         connectionMonitorThread.start();
     }
 
+    /**
+     * @return the default headers of the configuration, along with the encodings of the content
+     *         which are accepted unless they are configured explicitly
+     */
+    private static List<Header> getDefaultHeaders(CrawlConfig config) {
+        List<Header> headers = new ArrayList<>(config.getDefaultHeaders());
+        if (config.isContentCompression()) {
+            for (Header header : headers) {
+                if ("Accept-Encoding".equalsIgnoreCase(header.getName())) {
+                    return headers;
+                }
+            }
+            String encodings = config.isBrotliCompression() ? "gzip, deflate, br" : "gzip, deflate";
+            headers.add(new BasicHeader("Accept-Encoding", encodings));
+        }
+        return headers;
+    }
+
     /**
      * BASIC authentication<br/>
      * Official Example: https://hc.apache.org/httpcomponents-client-ga/httpclient/examples/org
@@ -241,20 +279,16 @@ public class PageFetcher extends Configurable {
     public PageFetchResult fetchPage(WebURL webUrl)
         throws InterruptedException, IOException, PageBiggerThanMaxSizeException {
         // Getting URL, setting headers & content
-        PageFetchResult fetchResult = new PageFetchResult();
+        PageFetchResult fetchResult = new PageFetchResult(config.getMaxDecompressionRatio());
         String toFetchURL = webUrl.getURL();
         HttpUriRequest request = null;
         try {
             request = newHttpUriRequest(toFetchURL);
-            if (config.getPolitenessDelay() > 0) {
-                // Applying Politeness delay
-                synchronized (mutex) {
-                    long now = (new Date()).getTime();
-                    if ((now - lastFetchTime) < config.getPolitenessDelay()) {
-                        Thread.sleep(config.getPolitenessDelay() - (now - lastFetchTime));
-                    }
-                    lastFetchTime = (new Date()).getTime();
-                }
+            addConditionalHeaders(request, toFetchURL);
+            long politenessDelay = getPolitenessDelay(webUrl);
+            if (politenessDelay > 0) {
+                // Applying Politeness delay, only requests to the same host have to wait
+                politenessTracker.acquire(webUrl.getHost(), politenessDelay);
             }
 
             CloseableHttpResponse response = httpClient.execute(request);
@@ -318,6 +352,69 @@ public class PageFetcher extends Configurable {
         }
     }
 
+    /**
+     * Makes the request conditional on the validators which were stored when the URL was
+     * fetched before, if any, so that the server can answer 304 if the page has not changed.
+     */
+    private void addConditionalHeaders(HttpUriRequest request, String url) {
+        if (validatorStore == null) {
+            return;
+        }
+        ValidatorStore.Validators validators = validatorStore.get(url);
+        if (validators != null) {
+            if (validators.getETag() != null) {
+                request.setHeader("If-None-Match", validators.getETag());
+            }
+            if (validators.getLastModified() != null) {
+                request.setHeader("If-Modified-Since", validators.getLastModified());
+            }
+        }
+    }
+
+    /**
+     * The delay between two requests to the host of the given URL: the configured politeness
+     * delay, or the Crawl-delay of the robots.txt of that host if it asks for more.
+     *
+     * @param webUrl the URL which is about to be fetched
+     * @return the delay in milliseconds
+     */
+    protected long getPolitenessDelay(WebURL webUrl) {
+        long politenessDelay = config.getPolitenessDelay();
+        if (robotstxtServer != null) {
+            politenessDelay = Math.max(politenessDelay, robotstxtServer.getCrawlDelay(webUrl));
+        }
+        return politenessDelay;
+    }
+
+    /**
+     * Sets the robots.txt server whose cached Crawl-delay directives are taken into account
+     * when applying the politeness delay.
+     *
+     * @param robotstxtServer the robots.txt server of the crawl, or null to ignore Crawl-delay
+     */
+    public void setRobotstxtServer(RobotstxtServer robotstxtServer) {
+        this.robotstxtServer = robotstxtServer;
+    }
+
+    /**
+     * Sets the store of the validators of previously fetched pages, which are sent with the
+     * requests for these pages again.
+     *
+     * @param validatorStore the validators of the crawl, or null to only send unconditional
+     *                       requests
+     */
+    public void setValidatorStore(ValidatorStore validatorStore) {
+        this.validatorStore = validatorStore;
+    }
+
+    /**
+     * @return the tracker which applies the politeness delay per host, and which keeps
+     *         statistics about the time spent waiting for it
+     */
+    public PolitenessTracker getPolitenessTracker() {
+        return politenessTracker;
+    }
+
     public synchronized void shutDown() {
         if (connectionMonitorThread != null) {
             connectionManager.shutdown();
@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the next time at which each host may be fetched from, so that the
+ * politeness delay is only applied between two requests to the same host. Threads which
+ * fetch from different hosts never wait for each other.
+ *
+ * Reserving a time slot for a host is an atomic update of the next-allowed-time of that host
+ * alone, and the calling thread then sleeps (if needed) until the slot it reserved. Hosts whose
+ * next-allowed-time has passed are purged only if it has not been advanced in the meantime, so
+ * that a slot which is being reserved is never lost.
+ */
+public class PolitenessTracker {
+
+    // Hosts which have not been fetched from for this long are forgotten
+    private static final long PURGE_INTERVAL = TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+
+    private final ConcurrentMap<String, Long> nextFetchTimes = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastPurgeTime = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder delayedRequests = new LongAdder();
+    private final LongAdder totalWaitTime = new LongAdder();
+
+    /**
+     * Reserves the next time slot for fetching from the given host and waits until then.
+     *
+     * @param host the host which is about to be fetched from
+     * @param delay the minimum delay in milliseconds between two requests to the host
+     * @return the number of milliseconds the calling thread has waited
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public long acquire(String host, long delay) throws InterruptedException {
+        requests.increment();
+        if (delay <= 0) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long[] fetchTime = new long[1];
+        nextFetchTimes.compute(host, (h, next) -> {
+            fetchTime[0] = (next != null) ? Math.max(now, next) : now;
+            return fetchTime[0] + delay;
+        });
+
+        purgeIfNeeded(now);
+
+        long waitTime = fetchTime[0] - now;
+        if (waitTime > 0) {
+            delayedRequests.increment();
+            totalWaitTime.add(waitTime);
+            Thread.sleep(waitTime);
+        }
+        return waitTime;
+    }
+
+    private void purgeIfNeeded(long now) {
+        long lastPurge = lastPurgeTime.get();
+        if (((now - lastPurge) > PURGE_INTERVAL) && lastPurgeTime.compareAndSet(lastPurge, now)) {
+            for (Map.Entry<String, Long> entry : nextFetchTimes.entrySet()) {
+                if (entry.getValue() < now) {
+                    // Not removed if a slot has been reserved since
+                    nextFetchTimes.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests which went through this tracker
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of requests which had to wait for the politeness delay of their host
+     */
+    public long getDelayedRequests() {
+        return delayedRequests.sum();
+    }
+
+    /**
+     * @return the total time in milliseconds that threads spent waiting for politeness delays
+     */
+    public long getTotalWaitTime() {
+        return totalWaitTime.sum();
+    }
+
+    /**
+     * @return the number of hosts which are currently tracked
+     */
+    public int getNumberOfHosts() {
+        return nextFetchTimes.size();
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.OperationStatus;
+
+/**
+ * Persistent store of the validators (ETag and Last-Modified headers) of the fetched pages,
+ * which are sent back as If-None-Match and If-Modified-Since headers when the pages are
+ * fetched again, so that servers can answer 304 (Not Modified) for unchanged pages.
+ *
+ * The store has its own database environment, so it outlives the frontier of crawls which
+ * are not resumable. Pages are therefore keyed by a 64 bit fingerprint of their URL rather
+ * than by their docid, which is only stable within a crawl.
+ */
+public class ValidatorStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidatorStore.class);
+
+    private static final String DATABASE_NAME = "Validators";
+
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * Validators of a page, either of which may be null.
+     */
+    public static class Validators {
+        private final String etag;
+        private final String lastModified;
+
+        public Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private final Environment env;
+    private final Database validatorsDB;
+
+    /**
+     * @param folder the folder of the database, which is created if it does not exist
+     */
+    public ValidatorStore(File folder) {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IllegalStateException(
+                "Failed creating the validators folder: " + folder.getAbsolutePath());
+        }
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        // Shares the cache of the frontier environment instead of budgeting its own one
+        envConfig.setSharedCache(true);
+        env = new Environment(folder, envConfig);
+
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        // Validators which are lost in a crash only cost a full download of their pages
+        dbConfig.setDeferredWrite(true);
+        validatorsDB = env.openDatabase(null, DATABASE_NAME, dbConfig);
+    }
+
+    private static DatabaseEntry getKey(String url) {
+        long fingerprint = FINGERPRINT_FUNCTION.hashString(url, StandardCharsets.UTF_8).asLong();
+        return new DatabaseEntry(Longs.toByteArray(fingerprint));
+    }
+
+    /**
+     * @return the stored validators of the url, or null if there are none
+     */
+    public Validators get(String url) {
+        DatabaseEntry value = new DatabaseEntry();
+        if (validatorsDB.get(null, getKey(url), value, null) != OperationStatus.SUCCESS) {
+            return null;
+        }
+        TupleInput input = new TupleInput(value.getData());
+        return new Validators(input.readString(), input.readString());
+    }
+
+    /**
+     * Stores the validators of the url, or removes its stored validators if both are null.
+     */
+    public void put(String url, String etag, String lastModified) {
+        if ((etag == null) && (lastModified == null)) {
+            validatorsDB.delete(null, getKey(url));
+            return;
+        }
+        TupleOutput output = new TupleOutput();
+        output.writeString(etag);
+        output.writeString(lastModified);
+        validatorsDB.put(null, getKey(url), new DatabaseEntry(output.toByteArray()));
+    }
+
+    /**
+     * Stores the validators of the url which are found in the headers of its response.
+     */
+    public void put(String url, Header[] responseHeaders) {
+        put(url, getHeader(responseHeaders, "ETag"), getHeader(responseHeaders, "Last-Modified"));
+    }
+
+    private static String getHeader(Header[] headers, String name) {
+        if (headers != null) {
+            for (Header header : headers) {
+                if (name.equalsIgnoreCase(header.getName())) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    public long getCount() {
+        return validatorsDB.count();
+    }
+
+    public void close() {
+        try {
+            validatorsDB.close();
+            env.close();
+        } catch (DatabaseException e) {
+            logger.error("Exception thrown while closing the validator store", e);
+        }
+    }
+}
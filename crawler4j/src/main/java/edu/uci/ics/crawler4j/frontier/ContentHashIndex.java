@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+
+import edu.uci.ics.crawler4j.crawler.Configurable;
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.util.SimHash;
+import edu.uci.ics.crawler4j.util.Util;
+
+/**
+ * Index of the content of the fetched pages, which finds the pages whose content is the same
+ * as that of a page which was fetched before, or nearly the same if
+ * {@link CrawlConfig#getNearDuplicateDistance()} is set.
+ *
+ * Duplicates are found by a 64 bit hash of the content. Near duplicates are found by the
+ * {@link SimHash} of the content: two fingerprints which differ in at most 3 bits have at
+ * least one of their four 16 bit blocks in common, so every fingerprint is stored under each
+ * of its blocks, and only the fingerprints which share a block with that of a page are
+ * compared to it.
+ *
+ * Pages with the same hash are told apart by storing the hash without overwriting it, so
+ * that only one of them is stored. Looking for near duplicates and storing the fingerprint
+ * are done while holding the locks of the four blocks of the fingerprint, so that of two
+ * near duplicates which are indexed at the same time, one finds the other.
+ *
+ * Only text and html pages with at least {@link #MIN_NEAR_DUPLICATE_WORDS} distinct words are
+ * looked for and indexed as near duplicates: the fingerprints of other pages, such as images
+ * or pages which are all markup, are alike whatever their content.
+ */
+public class ContentHashIndex extends Configurable {
+    private static final Logger logger = LoggerFactory.getLogger(ContentHashIndex.class);
+
+    private static final String DATABASE_NAME = "ContentHashes";
+    private static final String SIMHASH_DATABASE_NAME = "SimHashes";
+
+    private static final HashFunction HASH_FUNCTION = Hashing.farmHashFingerprint64();
+
+    private static final int SIMHASH_BLOCKS = 4;
+    private static final int SIMHASH_BLOCK_BITS = Long.SIZE / SIMHASH_BLOCKS;
+
+    /** Length of the keys of the SimHash database which select a block: index and value */
+    private static final int SIMHASH_BLOCK_PREFIX_LENGTH = 3;
+
+    /** Number of locks over which the blocks of the fingerprints are spread */
+    private static final int SIMHASH_LOCK_STRIPES = 64;
+
+    /** Number of distinct words which a page must have to be looked for as a near duplicate */
+    public static final int MIN_NEAR_DUPLICATE_WORDS = 32;
+
+    private final Database hashesDB;
+
+    /** Null if near duplicates are not looked for */
+    private final Database simHashesDB;
+
+    private final int nearDuplicateDistance;
+
+    private final ReentrantLock[] simHashLocks = new ReentrantLock[SIMHASH_LOCK_STRIPES];
+
+    public ContentHashIndex(Environment env, CrawlConfig config) {
+        super(config);
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        dbConfig.setTransactional(config.isResumableCrawling());
+        dbConfig.setDeferredWrite(!config.isResumableCrawling());
+        hashesDB = env.openDatabase(null, DATABASE_NAME, dbConfig);
+        nearDuplicateDistance = config.getNearDuplicateDistance();
+        if (nearDuplicateDistance >= 0) {
+            simHashesDB = env.openDatabase(null, SIMHASH_DATABASE_NAME, dbConfig);
+        } else {
+            simHashesDB = null;
+        }
+        for (int i = 0; i < simHashLocks.length; i++) {
+            simHashLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Looks for a page which was fetched before with the same or nearly the same content as
+     * the given page, and adds the given page to the index if there is none.
+     *
+     * @param docId the docid of the page
+     * @param content the content of the page
+     * @param contentType the content type of the page, or null if it is not known
+     * @return the docid of the page with the same content, or -1 if there is none
+     */
+    public int findDuplicate(int docId, byte[] content, String contentType) {
+        long hash = HASH_FUNCTION.hashBytes(content).asLong();
+        DatabaseEntry key = new DatabaseEntry(Longs.toByteArray(hash));
+        DatabaseEntry value = new DatabaseEntry(Util.int2ByteArray(docId));
+        if (hashesDB.putNoOverwrite(null, key, value) == OperationStatus.KEYEXIST) {
+            if (hashesDB.get(null, key, value, null) == OperationStatus.SUCCESS) {
+                int duplicateDocId = Util.byteArray2Int(value.getData());
+                // A page which is fetched again after resuming a crawl is not a duplicate
+                return (duplicateDocId != docId) ? duplicateDocId : -1;
+            }
+        }
+        if ((simHashesDB == null) || !hasTextContent(contentType)) {
+            return -1;
+        }
+
+        OptionalLong fingerprint =
+            SimHash.compute(content, 0, content.length, MIN_NEAR_DUPLICATE_WORDS);
+        if (!fingerprint.isPresent()) {
+            return -1;
+        }
+        long simHash = fingerprint.getAsLong();
+        int[] stripes = getLockStripes(simHash);
+        for (int stripe : stripes) {
+            simHashLocks[stripe].lock();
+        }
+        try {
+            int nearDuplicateDocId = findNearDuplicate(docId, simHash);
+            if (nearDuplicateDocId > 0) {
+                return nearDuplicateDocId;
+            }
+            for (int block = 0; block < SIMHASH_BLOCKS; block++) {
+                simHashesDB.put(null, getSimHashKey(block, simHash),
+                                new DatabaseEntry(Util.int2ByteArray(docId)));
+            }
+            return -1;
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                simHashLocks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the distinct indexes of the locks of the blocks of the fingerprint, in
+     *         ascending order so that they are always taken in the same order
+     */
+    private static int[] getLockStripes(long simHash) {
+        int[] stripes = new int[SIMHASH_BLOCKS];
+        for (int block = 0; block < SIMHASH_BLOCKS; block++) {
+            int blockValue = getBlockValue(simHash, block);
+            stripes[block] = ((blockValue * SIMHASH_BLOCKS) + block) % SIMHASH_LOCK_STRIPES;
+        }
+        Arrays.sort(stripes);
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if ((i == 0) || (stripes[i] != stripes[i - 1])) {
+                stripes[count++] = stripes[i];
+            }
+        }
+        return Arrays.copyOf(stripes, count);
+    }
+
+    /**
+     * @return whether the content type is that of text or html, whose words are fingerprinted
+     */
+    private static boolean hasTextContent(String contentType) {
+        String typeStr = (contentType != null) ? contentType.toLowerCase() : "";
+        return typeStr.contains("text") || typeStr.contains("html");
+    }
+
+    private int findNearDuplicate(int docId, long simHash) {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        for (int block = 0; block < SIMHASH_BLOCKS; block++) {
+            byte[] prefix =
+                Arrays.copyOf(getSimHashKey(block, simHash).getData(), SIMHASH_BLOCK_PREFIX_LENGTH);
+            key.setData(prefix);
+            try (Cursor cursor = simHashesDB.openCursor(null, null)) {
+                OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+                while ((result == OperationStatus.SUCCESS) && hasBlockPrefix(key, prefix)) {
+                    long candidate = getSimHash(key.getData());
+                    int candidateDocId = Util.byteArray2Int(value.getData());
+                    if ((SimHash.distance(simHash, candidate) <= nearDuplicateDistance) &&
+                        (candidateDocId != docId)) {
+                        return candidateDocId;
+                    }
+                    result = cursor.getNext(key, value, null);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the key of a SimHash under one of its blocks: the index of the block, its value
+     *         and the whole SimHash
+     */
+    private static DatabaseEntry getSimHashKey(int block, long simHash) {
+        byte[] key = new byte[SIMHASH_BLOCK_PREFIX_LENGTH + Long.BYTES];
+        int blockValue = getBlockValue(simHash, block);
+        key[0] = (byte) block;
+        key[1] = (byte) (blockValue >>> 8);
+        key[2] = (byte) blockValue;
+        System.arraycopy(Longs.toByteArray(simHash), 0, key, SIMHASH_BLOCK_PREFIX_LENGTH,
+                         Long.BYTES);
+        return new DatabaseEntry(key);
+    }
+
+    private static int getBlockValue(long simHash, int block) {
+        return (int) (simHash >>> (block * SIMHASH_BLOCK_BITS)) & 0xFFFF;
+    }
+
+    private static long getSimHash(byte[] key) {
+        long simHash = 0;
+        for (int i = SIMHASH_BLOCK_PREFIX_LENGTH; i < key.length; i++) {
+            simHash = (simHash << 8) | (key[i] & 0xFF);
+        }
+        return simHash;
+    }
+
+    private static boolean hasBlockPrefix(DatabaseEntry key, byte[] prefix) {
+        byte[] data = key.getData();
+        for (int i = 0; i < SIMHASH_BLOCK_PREFIX_LENGTH; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void close() {
+        try {
+            hashesDB.close();
+            if (simHashesDB != null) {
+                simHashesDB.close();
+            }
+        } catch (DatabaseException e) {
+            logger.error("Exception thrown while closing ContentHashIndex", e);
+        }
+    }
+}
@@ -17,8 +17,12 @@
 
 package edu.uci.ics.crawler4j.frontier;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +41,12 @@ import edu.uci.ics.crawler4j.crawler.CrawlConfig;
 import edu.uci.ics.crawler4j.util.Util;
 
 /**
+ * Named counters of the crawl. Counters are kept in memory, so incrementing them does not
+ * need any lock. When crawling is resumable, a background thread writes the values which
+ * have changed to the statistics database every
+ * {@link CrawlConfig#getCounterCheckpointInterval()} milliseconds, and once more when the
+ * counters are closed.
+ *
  * @author Yasser Ganjisaffar
  */
 public class Counters extends Configurable {
@@ -45,21 +55,27 @@ public class Counters extends Configurable {
     public static class ReservedCounterNames {
         public static final String SCHEDULED_PAGES = "Scheduled-Pages";
         public static final String PROCESSED_PAGES = "Processed-Pages";
+        public static final String DUPLICATE_PAGES = "Duplicate-Pages";
+        public static final String DUPLICATE_BYTES = "Duplicate-Bytes";
     }
 
     private static final String DATABASE_NAME = "Statistics";
     protected Database statisticsDB = null;
     protected Environment env;
 
-    protected final Object mutex = new Object();
+    protected final ConcurrentMap<String, LongAdder> counterValues = new ConcurrentHashMap<>();
+
+    /** Values as of the last checkpoint, only accessed while holding the checkpoint lock */
+    private final Map<String, Long> checkpointedValues = new HashMap<>();
+
+    private final Object checkpointMutex = new Object();
 
-    protected Map<String, Long> counterValues;
+    private CheckpointThread checkpointThread = null;
 
     public Counters(Environment env, CrawlConfig config) {
         super(config);
 
         this.env = env;
-        this.counterValues = new HashMap<>();
 
     /*
      * When crawling is set to be resumable, we have to keep the statistics
@@ -82,41 +98,40 @@ public class Counters extends Configurable {
 
             while (result == OperationStatus.SUCCESS) {
                 if (value.getData().length > 0) {
-                    String name = new String(key.getData());
+                    String name = new String(key.getData(), StandardCharsets.UTF_8);
                     long counterValue = Util.byteArray2Long(value.getData());
-                    counterValues.put(name, counterValue);
+                    getCounter(name).add(counterValue);
+                    checkpointedValues.put(name, counterValue);
                 }
                 result = cursor.getNext(key, value, null);
             }
             cursor.close();
             tnx.commit();
+
+            checkpointThread = new CheckpointThread(config.getCounterCheckpointInterval());
+            checkpointThread.start();
         }
     }
 
+    private LongAdder getCounter(String name) {
+        return counterValues.computeIfAbsent(name, n -> new LongAdder());
+    }
+
     public long getValue(String name) {
-        synchronized (mutex) {
-            Long value = counterValues.get(name);
-            if (value == null) {
-                return 0;
-            }
-            return value;
+        LongAdder counter = counterValues.get(name);
+        if (counter == null) {
+            return 0;
         }
+        return counter.sum();
     }
 
+    /**
+     * Sets the value of a counter. Increments of the same counter which happen at the same
+     * time may be lost, so this should only be used while nothing else updates the counter.
+     */
     public void setValue(String name, long value) {
-        synchronized (mutex) {
-            try {
-                counterValues.put(name, value);
-                if (statisticsDB != null) {
-                    Transaction txn = env.beginTransaction(null, null);
-                    statisticsDB.put(txn, new DatabaseEntry(name.getBytes()),
-                                     new DatabaseEntry(Util.long2ByteArray(value)));
-                    txn.commit();
-                }
-            } catch (Exception e) {
-                logger.error("Exception setting value", e);
-            }
-        }
+        LongAdder counter = getCounter(name);
+        counter.add(value - counter.sum());
     }
 
     public void increment(String name) {
@@ -124,19 +139,97 @@ public class Counters extends Configurable {
     }
 
     public void increment(String name, long addition) {
-        synchronized (mutex) {
-            long prevValue = getValue(name);
-            setValue(name, prevValue + addition);
+        getCounter(name).add(addition);
+    }
+
+    /**
+     * Writes the counters which have changed since the previous checkpoint to the
+     * statistics database, in a single transaction. Does nothing if crawling is not
+     * resumable.
+     */
+    public void checkpoint() {
+        if (statisticsDB == null) {
+            return;
+        }
+        synchronized (checkpointMutex) {
+            Map<String, Long> changedValues = new HashMap<>();
+            for (Map.Entry<String, LongAdder> entry : counterValues.entrySet()) {
+                long value = entry.getValue().sum();
+                Long checkpointedValue = checkpointedValues.get(entry.getKey());
+                if ((checkpointedValue == null) || (checkpointedValue != value)) {
+                    changedValues.put(entry.getKey(), value);
+                }
+            }
+            if (changedValues.isEmpty()) {
+                return;
+            }
+
+            Transaction txn = env.beginTransaction(null, null);
+            try {
+                for (Map.Entry<String, Long> entry : changedValues.entrySet()) {
+                    statisticsDB.put(txn, new DatabaseEntry(
+                                         entry.getKey().getBytes(StandardCharsets.UTF_8)),
+                                     new DatabaseEntry(Util.long2ByteArray(entry.getValue())));
+                }
+                txn.commit();
+                checkpointedValues.putAll(changedValues);
+            } catch (DatabaseException e) {
+                txn.abort();
+                logger.error("Exception while checkpointing the counters", e);
+            }
         }
     }
 
     public void close() {
+        if (checkpointThread != null) {
+            checkpointThread.shutdown();
+        }
         try {
             if (statisticsDB != null) {
+                checkpoint();
                 statisticsDB.close();
             }
         } catch (DatabaseException e) {
             logger.error("Exception thrown while trying to close statisticsDB", e);
         }
     }
-}
\ No newline at end of file
+
+    private class CheckpointThread extends Thread {
+        private final long interval;
+        private volatile boolean shutdown;
+
+        CheckpointThread(long interval) {
+            super("Counters Checkpoint");
+            this.interval = interval;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (this) {
+                        wait(interval);
+                    }
+                    if (!shutdown) {
+                        checkpoint();
+                    }
+                }
+            } catch (InterruptedException ignored) {
+                // terminate
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            synchronized (this) {
+                notifyAll();
+            }
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -17,51 +17,332 @@
 
 package edu.uci.ics.crawler4j.frontier;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
 
 import edu.uci.ics.crawler4j.crawler.Configurable;
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.url.WebURL;
 import edu.uci.ics.crawler4j.util.Util;
 
 /**
+ * Assigns unique docids to URLs. The URLs are spread over a configurable number of
+ * shards by their hash, and every shard has its own database and its own lock, so that
+ * crawler threads only contend when they look up URLs of the same shard.
+ *
+ * Every shard hands out its own range of docids: shard i of n assigns the docids
+ * i + 1, n + i + 1, 2n + i + 1, ... With a single shard, docids are simply 1, 2, 3, ...
+ * The shards are found by the names of their databases when a crawl is resumed, and a
+ * resumed crawl keeps the number of shards of the previous crawl.
+ *
+ * URLs are either stored with their full (UTF-8 encoded) URL as the key, or with a 64 bit
+ * fingerprint of the URL as the key, which keeps the database and its cache footprint
+ * much smaller. The value of a fingerprint key holds 32 more bits of the hash of the URL
+ * next to the docid. If two URLs share a fingerprint, these bits tell them apart, and the
+ * second URL is stored under its full URL, prefixed with a marker byte,
+ * instead. Fingerprint keys are 8 bytes long while those keys are always longer, so both
+ * kinds of keys can not be confused. A resumed crawl keeps the kind of keys of the previous
+ * crawl, which is told from its stored keys.
+ *
  * @author Yasser Ganjisaffar
  */
 
 public class DocIDServer extends Configurable {
     private static final Logger logger = LoggerFactory.getLogger(DocIDServer.class);
 
-    private final Database docIDsDB;
     private static final String DATABASE_NAME = "DocIDs";
 
-    private final Object mutex = new Object();
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
+    private static final byte COLLISION_KEY_MARKER = 0;
+
+    // Probability that the seen URL filter can not tell that a new URL is new
+    private static final double SEEN_URL_FILTER_FPP = 0.01;
+
+    private static class Shard {
+        private final int index;
+        private final Database docIDsDB;
+        private final Object mutex = new Object();
+
+        /** Number of docids which have been handed out by this shard */
+        private int sequence = 0;
+
+        Shard(int index, Database docIDsDB) {
+            this.index = index;
+            this.docIDsDB = docIDsDB;
+        }
+    }
+
+    private final Environment env;
+
+    private final Shard[] shards;
+
+    private final boolean fingerprintKeys;
+
+    /** Largest docid which has been assigned so far */
+    private final AtomicInteger lastDocID = new AtomicInteger();
 
-    private int lastDocID;
+    /**
+     * Fingerprints of all the URLs which have a docid. URLs which are not in this filter
+     * are certainly new, so they can be answered without looking them up in the database.
+     * Null if disabled.
+     */
+    private final BloomFilter<Long> seenUrls;
 
     public DocIDServer(Environment env, CrawlConfig config) {
         super(config);
+        this.env = env;
         DatabaseConfig dbConfig = new DatabaseConfig();
         dbConfig.setAllowCreate(true);
         dbConfig.setTransactional(config.isResumableCrawling());
         dbConfig.setDeferredWrite(!config.isResumableCrawling());
-        lastDocID = 0;
-        docIDsDB = env.openDatabase(null, DATABASE_NAME, dbConfig);
+        int shardCount = config.getDocIdShards();
+        if (config.isResumableCrawling()) {
+            int storedShardCount = getStoredShardCount(env);
+            if ((storedShardCount > 0) && (storedShardCount != shardCount)) {
+                // URLs would be looked up in other shards than the ones they are stored in
+                logger.warn("The docids of the previous crawl are stored in {} shards, " +
+                            "using them instead of the {} configured shards",
+                            storedShardCount, shardCount);
+                shardCount = storedShardCount;
+            }
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, env.openDatabase(null, getDatabaseName(i), dbConfig));
+        }
+        Boolean storedFingerprintKeys =
+            config.isResumableCrawling() ? getStoredFingerprintKeys(shards) : null;
+        if ((storedFingerprintKeys != null) &&
+            (storedFingerprintKeys != config.isDocIdFingerprintKeys())) {
+            // URLs would be looked up under other keys than the ones they are stored under
+            logger.warn("The docids of the previous crawl are keyed on {}, keeping them " +
+                        "instead of the configured keys",
+                        storedFingerprintKeys ? "fingerprints" : "full URLs");
+            fingerprintKeys = storedFingerprintKeys;
+        } else {
+            fingerprintKeys = config.isDocIdFingerprintKeys();
+        }
+        if (config.getSeenUrlFilterSize() > 0) {
+            seenUrls = BloomFilter.create(Funnels.longFunnel(), config.getSeenUrlFilterSize(),
+                                          SEEN_URL_FILTER_FPP);
+        } else {
+            seenUrls = null;
+        }
         if (config.isResumableCrawling()) {
             int docCount = getDocCount();
             if (docCount > 0) {
                 logger.info("Loaded {} URLs that had been detected in previous crawl.", docCount);
-                lastDocID = docCount;
+                loadDocIds();
             }
         }
     }
 
+    private static String getDatabaseName(int shard) {
+        // The first shard keeps the name of the unsharded database
+        return (shard == 0) ? DATABASE_NAME : (DATABASE_NAME + "-" + shard);
+    }
+
+    /**
+     * @return the number of shards of the docid database which exist in the environment
+     */
+    private static int getStoredShardCount(Environment env) {
+        Set<String> names = new HashSet<>(env.getDatabaseNames());
+        int count = 0;
+        while (names.contains(getDatabaseName(count))) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tells from the first stored key whether the URLs are keyed on their fingerprints: those
+     * keys are 8 bytes long or start with the collision marker, while the keys of full URLs
+     * are longer and start with the scheme of the URL.
+     *
+     * @return whether the stored URLs are keyed on their fingerprints, or null if there are no
+     *         stored URLs
+     */
+    private static Boolean getStoredFingerprintKeys(Shard[] shards) {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        for (Shard shard : shards) {
+            try (Cursor cursor = shard.docIDsDB.openCursor(null, null)) {
+                if (cursor.getNext(key, value, null) == OperationStatus.SUCCESS) {
+                    byte[] data = key.getData();
+                    return (data.length == Long.BYTES) || (data[0] == COLLISION_KEY_MARKER);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the URLs are keyed on 64 bit fingerprints rather than on the full URLs
+     */
+    public boolean isFingerprintKeys() {
+        return fingerprintKeys;
+    }
+
+    /**
+     * @return the number of shards over which the URLs are spread
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Scans the docids of a previous crawl, in order to continue after the largest one
+     * (docids do not need to be dense, e.g. when seen URLs were added with their own docids)
+     * and to fill the seen URL filter.
+     */
+    private void loadDocIds() {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        int maxDocId = 0;
+        for (Shard shard : shards) {
+            try (Cursor cursor = shard.docIDsDB.openCursor(null, null)) {
+                while (cursor.getNext(key, value, null) == OperationStatus.SUCCESS) {
+                    if (value.getData().length > 0) {
+                        maxDocId = Math.max(maxDocId, Util.byteArray2Int(value.getData()));
+                    }
+                    if (seenUrls != null) {
+                        seenUrls.put(getFingerprint(key.getData()));
+                    }
+                }
+            }
+        }
+        advancePast(maxDocId);
+    }
+
+    /**
+     * @return the hash of the url if it is needed for the seen URL filter or for a
+     *         fingerprint key, null otherwise
+     */
+    private HashCode hash(String url) {
+        if ((seenUrls == null) && !fingerprintKeys) {
+            return null;
+        }
+        return FINGERPRINT_FUNCTION.hashString(url, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Recovers the fingerprint of the URL of a stored key.
+     */
+    private long getFingerprint(byte[] key) {
+        if (fingerprintKeys && (key.length == Long.BYTES)) {
+            return Longs.fromByteArray(key);
+        }
+        String url;
+        if (fingerprintKeys) {
+            url = new String(key, 1, key.length - 1, StandardCharsets.UTF_8);
+        } else {
+            url = new String(key, StandardCharsets.UTF_8);
+        }
+        return FINGERPRINT_FUNCTION.hashString(url, StandardCharsets.UTF_8).asLong();
+    }
+
+    private static DatabaseEntry getUrlKey(String url) {
+        return new DatabaseEntry(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DatabaseEntry getFingerprintKey(HashCode hash) {
+        return new DatabaseEntry(Longs.toByteArray(hash.asLong()));
+    }
+
+    private static DatabaseEntry getCollisionKey(String url) {
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[urlBytes.length + 1];
+        key[0] = COLLISION_KEY_MARKER;
+        System.arraycopy(urlBytes, 0, key, 1, urlBytes.length);
+        return new DatabaseEntry(key);
+    }
+
+    /**
+     * The 32 bits of the hash of a URL which follow its fingerprint.
+     */
+    private static int getCheckBits(HashCode hash) {
+        byte[] bytes = hash.asBytes();
+        return Ints.fromBytes(bytes[8], bytes[9], bytes[10], bytes[11]);
+    }
+
+    /**
+     * Looks up the docid of the url. Must be called while holding the lock of the shard.
+     *
+     * @return the docid of the url, or -1 if it has none
+     */
+    private int lookup(Shard shard, Transaction txn, String url, HashCode hash) {
+        DatabaseEntry value = new DatabaseEntry();
+        if (fingerprintKeys) {
+            OperationStatus result =
+                shard.docIDsDB.get(txn, getFingerprintKey(hash), value, null);
+            if (result != OperationStatus.SUCCESS) {
+                return -1;
+            }
+            if (getCheckBits(value.getData()) == getCheckBits(hash)) {
+                return Util.byteArray2Int(value.getData());
+            }
+            // Another URL has the same fingerprint
+            value = new DatabaseEntry();
+            result = shard.docIDsDB.get(txn, getCollisionKey(url), value, null);
+            if (result != OperationStatus.SUCCESS) {
+                return -1;
+            }
+        } else {
+            OperationStatus result = shard.docIDsDB.get(txn, getUrlKey(url), value, null);
+            if ((result != OperationStatus.SUCCESS) || (value.getData().length == 0)) {
+                return -1;
+            }
+        }
+        return Util.byteArray2Int(value.getData());
+    }
+
+    private static int getCheckBits(byte[] value) {
+        return Ints.fromBytes(value[4], value[5], value[6], value[7]);
+    }
+
+    private Shard getShard(String url) {
+        return shards[Math.floorMod(url.hashCode(), shards.length)];
+    }
+
+    /**
+     * Makes sure that all the docids which are assigned from now on are larger than the
+     * given one.
+     */
+    private void advancePast(int docId) {
+        for (Shard shard : shards) {
+            synchronized (shard.mutex) {
+                // The next docid of the shard is sequence * shards.length + index + 1
+                int sequence = Math.floorDiv(docId - shard.index - 1, shards.length) + 1;
+                shard.sequence = Math.max(shard.sequence, sequence);
+            }
+        }
+        lastDocID.accumulateAndGet(docId, Math::max);
+    }
+
     /**
      * Returns the docid of an already seen url.
      *
@@ -69,66 +350,190 @@ public class DocIDServer extends Configurable {
      * @return the docid of the url if it is seen before. Otherwise -1 is returned.
      */
     public int getDocId(String url) {
-        synchronized (mutex) {
-            OperationStatus result = null;
-            DatabaseEntry value = new DatabaseEntry();
+        HashCode hash = hash(url);
+        if ((seenUrls != null) && !seenUrls.mightContain(hash.asLong())) {
+            return -1;
+        }
+        Shard shard = getShard(url);
+        synchronized (shard.mutex) {
             try {
-                DatabaseEntry key = new DatabaseEntry(url.getBytes());
-                result = docIDsDB.get(null, key, value, null);
-
+                return lookup(shard, null, url, hash);
             } catch (Exception e) {
                 logger.error("Exception thrown while getting DocID", e);
                 return -1;
             }
+        }
+    }
 
-            if ((result == OperationStatus.SUCCESS) && (value.getData().length > 0)) {
-                return Util.byteArray2Int(value.getData());
+    /**
+     * Returns the docid of the url, assigning a new docid to it if it has not been seen
+     * before. This takes a single database operation for new URLs.
+     *
+     * @param url the URL for which the docid is returned.
+     * @return the docid of the url, or -1 if an error occurred.
+     */
+    public int getOrAssignDocId(String url) {
+        Shard shard = getShard(url);
+        synchronized (shard.mutex) {
+            try {
+                int docId = assignDocId(shard, null, url);
+                return (docId != 0) ? Math.abs(docId) : -1;
+            } catch (Exception e) {
+                logger.error("Exception thrown while getting new DocID", e);
+                return -1;
             }
-
-            return -1;
         }
     }
 
     public int getNewDocID(String url) {
-        synchronized (mutex) {
-            try {
-                // Make sure that we have not already assigned a docid for this URL
-                int docID = getDocId(url);
-                if (docID > 0) {
-                    return docID;
+        return getOrAssignDocId(url);
+    }
+
+    /**
+     * Assigns new docids to those of the given URLs which have not been seen before. The
+     * URLs of each shard are assigned at once. URLs which turn out to have a docid already,
+     * e.g. because another crawler thread has just assigned it, or because they occur twice
+     * in the list, get that docid.
+     *
+     * @param urls the URLs which should get a docid
+     * @return the URLs which have been assigned a new docid, in their original order
+     */
+    public List<WebURL> assignNewDocIds(List<WebURL> urls) {
+        boolean[] isNew = new boolean[urls.size()];
+        int[] shardIndexes = new int[urls.size()];
+        boolean[] usedShards = new boolean[shards.length];
+        for (int i = 0; i < urls.size(); i++) {
+            shardIndexes[i] = getShard(urls.get(i).getURL()).index;
+            usedShards[shardIndexes[i]] = true;
+        }
+
+        for (Shard shard : shards) {
+            if (!usedShards[shard.index]) {
+                continue;
+            }
+            synchronized (shard.mutex) {
+                Transaction txn = config.isResumableCrawling() ?
+                                  env.beginTransaction(null, null) : null;
+                try {
+                    for (int i = 0; i < urls.size(); i++) {
+                        if (shardIndexes[i] == shard.index) {
+                            WebURL url = urls.get(i);
+                            int docId = assignDocId(shard, txn, url.getURL());
+                            if (docId != 0) {
+                                url.setDocid(Math.abs(docId));
+                            }
+                            isNew[i] = docId > 0;
+                        }
+                    }
+                    if (txn != null) {
+                        txn.commit();
+                    }
+                } catch (Exception e) {
+                    logger.error("Exception thrown while assigning new DocIDs", e);
+                    if (txn != null) {
+                        txn.abort();
+                    }
+                    for (int i = 0; i < urls.size(); i++) {
+                        if (shardIndexes[i] == shard.index) {
+                            isNew[i] = false;
+                        }
+                    }
                 }
+            }
+        }
 
-                ++lastDocID;
-                docIDsDB.put(null, new DatabaseEntry(url.getBytes()),
-                             new DatabaseEntry(Util.int2ByteArray(lastDocID)));
-                return lastDocID;
-            } catch (Exception e) {
-                logger.error("Exception thrown while getting new DocID", e);
-                return -1;
+        List<WebURL> newUrls = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            if (isNew[i]) {
+                newUrls.add(urls.get(i));
             }
         }
+        return newUrls;
     }
 
-    public void addUrlAndDocId(String url, int docId) throws Exception {
-        synchronized (mutex) {
-            if (docId <= lastDocID) {
-                throw new Exception(
-                    "Requested doc id: " + docId + " is not larger than: " + lastDocID);
+    /**
+     * Stores the next docid of the shard for the url, unless it already has one. Must be
+     * called while holding the lock of the shard.
+     *
+     * @return the new docid, the existing docid negated if the url already had one, or 0 if
+     *         the url is stored but its docid can not be read
+     */
+    private int assignDocId(Shard shard, Transaction txn, String url) {
+        HashCode hash = hash(url);
+        int docId = (shard.sequence * shards.length) + shard.index + 1;
+        if (!store(shard, txn, url, hash, docId)) {
+            int existingDocId = lookup(shard, txn, url, hash);
+            if (existingDocId == -1) {
+                logger.warn("URL is stored without a docid: {}", url);
+                return 0;
             }
+            return -existingDocId;
+        }
+        shard.sequence++;
+        lastDocID.accumulateAndGet(docId, Math::max);
+        if (seenUrls != null) {
+            seenUrls.put(hash.asLong());
+        }
+        return docId;
+    }
 
-            // Make sure that we have not already assigned a docid for this URL
-            int prevDocid = getDocId(url);
-            if (prevDocid > 0) {
-                if (prevDocid == docId) {
-                    return;
+    /**
+     * Stores the docid for the url, unless the url already has one. Must be called while
+     * holding the lock of the shard.
+     *
+     * @return true if the docid has been stored, false if the url already had a docid
+     */
+    private boolean store(Shard shard, Transaction txn, String url, HashCode hash, int docId) {
+        OperationStatus result;
+        if (fingerprintKeys) {
+            byte[] value = new byte[8];
+            Util.putIntInByteArray(docId, value, 0);
+            Util.putIntInByteArray(getCheckBits(hash), value, 4);
+            DatabaseEntry key = getFingerprintKey(hash);
+            result = shard.docIDsDB.putNoOverwrite(txn, key, new DatabaseEntry(value));
+            if (result == OperationStatus.KEYEXIST) {
+                DatabaseEntry existing = new DatabaseEntry();
+                shard.docIDsDB.get(txn, key, existing, null);
+                if (getCheckBits(existing.getData()) == getCheckBits(hash)) {
+                    return false;
                 }
-                throw new Exception("Doc id: " + prevDocid + " is already assigned to URL: " + url);
+                logger.debug("Fingerprint collision, storing the full URL of: {}", url);
+                result = shard.docIDsDB.putNoOverwrite(
+                    txn, getCollisionKey(url), new DatabaseEntry(Util.int2ByteArray(docId)));
             }
+        } else {
+            result = shard.docIDsDB.putNoOverwrite(
+                txn, getUrlKey(url), new DatabaseEntry(Util.int2ByteArray(docId)));
+        }
+        return result == OperationStatus.SUCCESS;
+    }
 
-            docIDsDB.put(null, new DatabaseEntry(url.getBytes()),
-                         new DatabaseEntry(Util.int2ByteArray(docId)));
-            lastDocID = docId;
+    public void addUrlAndDocId(String url, int docId) throws Exception {
+        if (docId <= lastDocID.get()) {
+            throw new Exception(
+                "Requested doc id: " + docId + " is not larger than: " + lastDocID.get());
+        }
+
+        // Make sure that we have not already assigned a docid for this URL
+        int prevDocid = getDocId(url);
+        if (prevDocid > 0) {
+            if (prevDocid == docId) {
+                return;
+            }
+            throw new Exception("Doc id: " + prevDocid + " is already assigned to URL: " + url);
         }
+
+        Shard shard = getShard(url);
+        HashCode hash = hash(url);
+        synchronized (shard.mutex) {
+            if (!store(shard, null, url, hash, docId)) {
+                throw new Exception("A doc id is already assigned to URL: " + url);
+            }
+            if (seenUrls != null) {
+                seenUrls.put(hash.asLong());
+            }
+        }
+        advancePast(docId);
     }
 
     public boolean isSeenBefore(String url) {
@@ -137,7 +542,11 @@ public class DocIDServer extends Configurable {
 
     public final int getDocCount() {
         try {
-            return (int) docIDsDB.count();
+            long docCount = 0;
+            for (Shard shard : shards) {
+                docCount += shard.docIDsDB.count();
+            }
+            return (int) docCount;
         } catch (DatabaseException e) {
             logger.error("Exception thrown while getting DOC Count", e);
             return -1;
@@ -145,10 +554,12 @@ public class DocIDServer extends Configurable {
     }
 
     public void close() {
-        try {
-            docIDsDB.close();
-        } catch (DatabaseException e) {
-            logger.error("Exception thrown while closing DocIDServer", e);
+        for (Shard shard : shards) {
+            try {
+                shard.docIDsDB.close();
+            } catch (DatabaseException e) {
+                logger.error("Exception thrown while closing DocIDServer", e);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -17,16 +17,19 @@
 
 package edu.uci.ics.crawler4j.frontier;
 
+import java.io.File;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Durability;
 import com.sleepycat.je.Environment;
 
 import edu.uci.ics.crawler4j.crawler.Configurable;
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
 import edu.uci.ics.crawler4j.url.WebURL;
 
 /**
@@ -37,8 +40,10 @@ public class Frontier extends Configurable {
     protected static final Logger logger = LoggerFactory.getLogger(Frontier.class);
 
     private static final String DATABASE_NAME = "PendingURLsDB";
+    private static final String HOST_QUEUES_DATABASE_NAME = "PendingURLsByHostDB";
+    private static final String SPILL_FOLDER_NAME = "frontier-spill";
     private static final int IN_PROCESS_RESCHEDULE_BATCH_SIZE = 100;
-    protected WorkQueues workQueues;
+    protected URLQueue workQueues;
 
     protected InProcessPagesDB inProcessPages;
 
@@ -51,11 +56,29 @@ public class Frontier extends Configurable {
 
     protected Counters counters;
 
+    protected GroupCommitThread groupCommitThread = null;
+
     public Frontier(Environment env, CrawlConfig config) {
         super(config);
         this.counters = new Counters(env, config);
+        if (config.isResumableCrawling() &&
+            (config.getCommitSyncPolicy() != Durability.SyncPolicy.SYNC)) {
+            groupCommitThread = new GroupCommitThread(env, config.getGroupCommitInterval(),
+                                                      config.getGroupCommitSize());
+            groupCommitThread.start();
+        }
         try {
-            workQueues = new WorkQueues(env, DATABASE_NAME, config.isResumableCrawling());
+            if (config.isHostPartitionedFrontier()) {
+                workQueues = new HostQueues(env, HOST_QUEUES_DATABASE_NAME,
+                                            config.isResumableCrawling(),
+                                            config.getPolitenessDelay());
+            } else if (config.isInMemoryFrontier()) {
+                workQueues = new InMemoryWorkQueues(
+                    new File(config.getCrawlStorageFolder(), SPILL_FOLDER_NAME),
+                    config.getInMemoryFrontierSize());
+            } else {
+                workQueues = new WorkQueues(env, DATABASE_NAME, config.isResumableCrawling());
+            }
             if (config.isResumableCrawling()) {
                 scheduledPages = counters.getValue(Counters.ReservedCounterNames.SCHEDULED_PAGES);
                 inProcessPages = new InProcessPagesDB(env);
@@ -85,24 +108,23 @@ public class Frontier extends Configurable {
     public void scheduleAll(List<WebURL> urls) {
         int maxPagesToFetch = config.getMaxPagesToFetch();
         synchronized (mutex) {
-            int newScheduledPage = 0;
-            for (WebURL url : urls) {
-                if ((maxPagesToFetch > 0) &&
-                    ((scheduledPages + newScheduledPage) >= maxPagesToFetch)) {
-                    break;
-                }
-
+            List<WebURL> newUrls = urls;
+            if ((maxPagesToFetch > 0) && ((scheduledPages + urls.size()) > maxPagesToFetch)) {
+                newUrls = urls.subList(0, (int) Math.max(0, maxPagesToFetch - scheduledPages));
+            }
+            if (!newUrls.isEmpty()) {
                 try {
-                    workQueues.put(url);
-                    newScheduledPage++;
+                    workQueues.putAll(newUrls);
+                    scheduledPages += newUrls.size();
+                    counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES,
+                                       newUrls.size());
+                    if (groupCommitThread != null) {
+                        groupCommitThread.committed(newUrls.size());
+                    }
                 } catch (DatabaseException e) {
-                    logger.error("Error while putting the url in the work queue", e);
+                    logger.error("Error while putting the urls in the work queue", e);
                 }
             }
-            if (newScheduledPage > 0) {
-                scheduledPages += newScheduledPage;
-                counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES, newScheduledPage);
-            }
             synchronized (waitingList) {
                 waitingList.notifyAll();
             }
@@ -117,6 +139,9 @@ public class Frontier extends Configurable {
                     workQueues.put(url);
                     scheduledPages++;
                     counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES);
+                    if (groupCommitThread != null) {
+                        groupCommitThread.committed(1);
+                    }
                 }
             } catch (DatabaseException e) {
                 logger.error("Error while putting the url in the work queue", e);
@@ -126,17 +151,19 @@ public class Frontier extends Configurable {
 
     public void getNextURLs(int max, List<WebURL> result) {
         while (true) {
+            // Waits until a URL is scheduled, unless a host becomes ready before
+            long waitTime = -1;
             synchronized (mutex) {
                 if (isFinished) {
                     return;
                 }
                 try {
-                    List<WebURL> curResults = workQueues.get(max);
-                    workQueues.delete(curResults.size());
+                    List<WebURL> curResults;
                     if (inProcessPages != null) {
-                        for (WebURL curPage : curResults) {
-                            inProcessPages.put(curPage);
-                        }
+                        // Resumable crawls always use a database backed queue
+                        curResults = ((WorkQueues) workQueues).take(max, inProcessPages);
+                    } else {
+                        curResults = workQueues.take(max);
                     }
                     result.addAll(curResults);
                 } catch (DatabaseException e) {
@@ -146,11 +173,23 @@ public class Frontier extends Configurable {
                 if (result.size() > 0) {
                     return;
                 }
+                if (workQueues instanceof HostQueues) {
+                    // There may be queued URLs whose hosts are not ready yet
+                    waitTime = ((HostQueues) workQueues).getNextFetchDelay();
+                    if (waitTime == 0) {
+                        // A host has become ready since its URLs were taken
+                        continue;
+                    }
+                }
             }
 
             try {
                 synchronized (waitingList) {
-                    waitingList.wait();
+                    if (waitTime > 0) {
+                        waitingList.wait(waitTime);
+                    } else {
+                        waitingList.wait();
+                    }
                 }
             } catch (InterruptedException ignored) {
                 // Do nothing
@@ -170,6 +209,29 @@ public class Frontier extends Configurable {
         }
     }
 
+    /**
+     * Counts a fetched page whose content duplicates that of a page which was fetched before,
+     * and which is therefore not processed any further.
+     *
+     * @param contentLength the length of the content of the page, which is not parsed
+     */
+    public void countDuplicate(long contentLength) {
+        counters.increment(Counters.ReservedCounterNames.DUPLICATE_PAGES);
+        counters.increment(Counters.ReservedCounterNames.DUPLICATE_BYTES, contentLength);
+    }
+
+    /**
+     * Makes the frontier take the Crawl-delay of robots.txt into account when it hands out
+     * URLs per host. This only has an effect on a host partitioned frontier.
+     *
+     * @param robotstxtServer the robots.txt server of the crawl
+     */
+    public void setRobotstxtServer(RobotstxtServer robotstxtServer) {
+        if (workQueues instanceof HostQueues) {
+            ((HostQueues) workQueues).setRobotstxtServer(robotstxtServer);
+        }
+    }
+
     public long getQueueLength() {
         return workQueues.getLength();
     }
@@ -186,11 +248,25 @@ public class Frontier extends Configurable {
         return counters.getValue(Counters.ReservedCounterNames.SCHEDULED_PAGES);
     }
 
+    public long getNumberOfDuplicatePages() {
+        return counters.getValue(Counters.ReservedCounterNames.DUPLICATE_PAGES);
+    }
+
+    /**
+     * @return the total length of the content of the duplicate pages, which was not parsed
+     */
+    public long getNumberOfDuplicateBytes() {
+        return counters.getValue(Counters.ReservedCounterNames.DUPLICATE_BYTES);
+    }
+
     public boolean isFinished() {
         return isFinished;
     }
 
     public void close() {
+        if (groupCommitThread != null) {
+            groupCommitThread.shutdown();
+        }
         workQueues.close();
         counters.close();
         if (inProcessPages != null) {
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.StatsConfig;
+
+/**
+ * Makes the commits of a resumable crawl durable in groups, when transactions are
+ * committed without synchronously writing them to disk. The log of the environment is
+ * flushed and synced every commit interval if any transaction has been committed since the
+ * previous flush, or as soon as enough URLs have been scheduled, whichever comes first.
+ */
+public class GroupCommitThread extends Thread {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitThread.class);
+
+    private final Environment env;
+    private final long commitInterval;
+    private final int maxPendingUrls;
+
+    private int pendingUrls = 0;
+    private long flushedCommits = 0;
+    private volatile boolean shutdown;
+
+    /**
+     * @param env the environment whose log is flushed
+     * @param commitInterval maximum time in milliseconds between two flushes, or 0 to only
+     *                       flush based on the number of scheduled URLs
+     * @param maxPendingUrls number of scheduled URLs after which the log is flushed early
+     */
+    public GroupCommitThread(Environment env, long commitInterval, int maxPendingUrls) {
+        super("Group Commit");
+        this.env = env;
+        this.commitInterval = commitInterval;
+        this.maxPendingUrls = maxPendingUrls;
+        setDaemon(true);
+    }
+
+    /**
+     * Notes that URLs have been committed, waking the thread up if enough of them are
+     * waiting to be made durable.
+     *
+     * @param count the number of URLs which have been committed
+     */
+    public synchronized void committed(int count) {
+        pendingUrls += count;
+        if ((maxPendingUrls > 0) && (pendingUrls >= maxPendingUrls)) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!shutdown) {
+                int committedUrls;
+                synchronized (this) {
+                    if ((maxPendingUrls <= 0) || (pendingUrls < maxPendingUrls)) {
+                        wait(commitInterval);
+                    }
+                    committedUrls = pendingUrls;
+                    pendingUrls = 0;
+                }
+                // Pages, docids and counters are committed without notifying this thread
+                long commits = getCommitCount();
+                if ((committedUrls > 0) || (commits != flushedCommits) || shutdown) {
+                    flushedCommits = commits;
+                    flush();
+                }
+            }
+        } catch (InterruptedException ignored) {
+            // terminate
+        }
+    }
+
+    private long getCommitCount() {
+        try {
+            return env.getTransactionStats(StatsConfig.DEFAULT).getNCommits();
+        } catch (DatabaseException e) {
+            logger.error("Error while reading the transaction stats of the frontier", e);
+            return flushedCommits + 1;
+        }
+    }
+
+    private void flush() {
+        try {
+            env.flushLog(true);
+        } catch (DatabaseException e) {
+            logger.error("Error while flushing the log of the frontier", e);
+        }
+    }
+
+    /**
+     * Stops the thread after a last flush of the log.
+     */
+    public void shutdown() {
+        shutdown = true;
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * A work queue which keeps a separate queue for every host. URLs are handed out in a
+ * round-robin fashion over the hosts, and only from hosts whose politeness delay has
+ * elapsed since the last URL of that host was handed out. As a result a single big site
+ * can not dominate the batches which are assigned to the crawler threads.
+ *
+ * All the host queues share one database: the key of each URL is prefixed with its host,
+ * so the URLs of a host are stored next to each other and are crawled in the same order
+ * as in {@link WorkQueues}.
+ */
+public class HostQueues extends WorkQueues {
+    private static final Logger logger = LoggerFactory.getLogger(HostQueues.class);
+
+    private static final byte HOST_SEPARATOR = 0;
+
+    private static class HostQueue implements Comparable<HostQueue> {
+        private final String host;
+        private final byte[] keyPrefix;
+        private long nextFetchTime;
+        private long order;
+
+        HostQueue(String host) {
+            this.host = host;
+            byte[] hostBytes = host.getBytes(StandardCharsets.UTF_8);
+            this.keyPrefix = Arrays.copyOf(hostBytes, hostBytes.length + 1);
+            this.keyPrefix[hostBytes.length] = HOST_SEPARATOR;
+        }
+
+        @Override
+        public int compareTo(HostQueue other) {
+            if (nextFetchTime != other.nextFetchTime) {
+                return Long.compare(nextFetchTime, other.nextFetchTime);
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+
+    private final long politenessDelay;
+
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+
+    /** Hosts ordered by the time at which they may be fetched from again */
+    private final PriorityQueue<HostQueue> schedule = new PriorityQueue<>();
+
+    private long scheduleCounter = 0;
+
+    private RobotstxtServer robotstxtServer = null;
+
+    public HostQueues(Environment env, String dbName, boolean resumable, long politenessDelay) {
+        super(env, dbName, resumable);
+        this.politenessDelay = politenessDelay;
+        if (resumable) {
+            loadHosts();
+            if (!hostQueues.isEmpty()) {
+                logger.info("Loaded queues of {} hosts from previous crawl.", hostQueues.size());
+            }
+        }
+    }
+
+    /**
+     * Walks over the stored keys, jumping from one host to the next one, in order to
+     * rebuild the schedule of the hosts which still have URLs in their queue.
+     */
+    private void loadHosts() {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(0, 0, true);
+        Transaction txn = beginTransaction();
+        try (Cursor cursor = openCursor(txn)) {
+            OperationStatus result = cursor.getFirst(key, value, null);
+            while (result == OperationStatus.SUCCESS) {
+                byte[] data = key.getData();
+                int start = key.getOffset();
+                int end = start;
+                while ((end < start + key.getSize()) && (data[end] != HOST_SEPARATOR)) {
+                    end++;
+                }
+                String host = new String(data, start, end - start, StandardCharsets.UTF_8);
+                scheduleHost(new HostQueue(host), 0);
+
+                // Smallest possible key which is larger than all the keys of this host
+                byte[] nextHostKey = Arrays.copyOfRange(data, start, end + 1);
+                nextHostKey[end - start] = HOST_SEPARATOR + 1;
+                key.setData(nextHostKey);
+                result = cursor.getSearchKeyRange(key, value, null);
+            }
+        }
+        commit(txn);
+    }
+
+    private void scheduleHost(HostQueue hostQueue, long nextFetchTime) {
+        hostQueue.nextFetchTime = nextFetchTime;
+        hostQueue.order = scheduleCounter++;
+        hostQueues.put(hostQueue.host, hostQueue);
+        schedule.add(hostQueue);
+    }
+
+    @Override
+    protected DatabaseEntry getDatabaseEntryKey(WebURL url) {
+        byte[] host = url.getHost().getBytes(StandardCharsets.UTF_8);
+        byte[] urlKey = super.getDatabaseEntryKey(url).getData();
+        byte[] keyData = new byte[host.length + 1 + urlKey.length];
+        System.arraycopy(host, 0, keyData, 0, host.length);
+        keyData[host.length] = HOST_SEPARATOR;
+        System.arraycopy(urlKey, 0, keyData, host.length + 1, urlKey.length);
+        return new DatabaseEntry(keyData);
+    }
+
+    @Override
+    public void put(WebURL url) {
+        synchronized (mutex) {
+            super.put(url);
+            String host = url.getHost();
+            if (!hostQueues.containsKey(host)) {
+                scheduleHost(new HostQueue(host), 0);
+            }
+        }
+    }
+
+    @Override
+    public void putAll(List<WebURL> urls) {
+        synchronized (mutex) {
+            super.putAll(urls);
+            for (WebURL url : urls) {
+                String host = url.getHost();
+                if (!hostQueues.containsKey(host)) {
+                    scheduleHost(new HostQueue(host), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes and returns at most max URLs, taking at most one URL from each of the hosts
+     * whose politeness delay has elapsed. The hosts that have been served are moved to the
+     * back of the schedule.
+     *
+     * @param max maximum number of URLs to return
+     * @param inProcessPages the in-process pages to add the URLs to, or null
+     * @return the URLs that were removed from the queues, possibly none if no host is ready
+     */
+    @Override
+    public List<WebURL> take(int max, InProcessPagesDB inProcessPages) {
+        synchronized (mutex) {
+            List<WebURL> results = new ArrayList<>(max);
+            List<HostQueue> served = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            Transaction txn = beginTransaction();
+            try (Cursor cursor = openCursor(txn)) {
+                while ((results.size() < max) && !schedule.isEmpty() &&
+                       (schedule.peek().nextFetchTime <= now)) {
+                    HostQueue hostQueue = schedule.poll();
+                    key.setData(hostQueue.keyPrefix);
+                    OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+                    if ((result != OperationStatus.SUCCESS) ||
+                        !hasPrefix(key, hostQueue.keyPrefix)) {
+                        // Queue of this host is exhausted
+                        hostQueues.remove(hostQueue.host);
+                        continue;
+                    }
+                    WebURL url = webURLBinding.entryToObject(value);
+                    results.add(url);
+                    if (inProcessPages != null) {
+                        inProcessPages.put(txn, url, value);
+                    }
+                    cursor.delete();
+                    hostQueue.nextFetchTime = now + getPolitenessDelay(url);
+                    served.add(hostQueue);
+                }
+            }
+            commit(txn);
+
+            // Hosts which run out of URLs are kept until their next turn, so that URLs
+            // which are added to them in the meantime still respect the politeness delay.
+            for (HostQueue hostQueue : served) {
+                scheduleHost(hostQueue, hostQueue.nextFetchTime);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * @param url the URL which has just been handed out
+     * @return the time in milliseconds before the next URL of the same host may be handed out
+     */
+    protected long getPolitenessDelay(WebURL url) {
+        if (robotstxtServer == null) {
+            return politenessDelay;
+        }
+        return Math.max(politenessDelay, robotstxtServer.getCrawlDelay(url));
+    }
+
+    /**
+     * Sets the robots.txt server whose cached Crawl-delay directives are taken into account
+     * when hosts are rescheduled.
+     *
+     * @param robotstxtServer the robots.txt server of the crawl, or null to ignore Crawl-delay
+     */
+    public void setRobotstxtServer(RobotstxtServer robotstxtServer) {
+        this.robotstxtServer = robotstxtServer;
+    }
+
+    private static boolean hasPrefix(DatabaseEntry key, byte[] prefix) {
+        if (key.getSize() < prefix.length) {
+            return false;
+        }
+        byte[] data = key.getData();
+        int offset = key.getOffset();
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of milliseconds until the next host may be fetched from,
+     *         0 if a host is ready now, or -1 if there are no hosts with queued URLs.
+     */
+    public long getNextFetchDelay() {
+        synchronized (mutex) {
+            HostQueue next = schedule.peek();
+            if (next == null) {
+                return -1;
+            }
+            return Math.max(0, next.nextFetchTime - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return the number of hosts which are currently scheduled
+     */
+    public int getNumberOfHosts() {
+        synchronized (mutex) {
+            return hostQueues.size();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.IO;
+
+/**
+ * A work queue for crawls which do not need to be resumed. The head of the queue is kept
+ * in memory, sorted the same way as the keys of {@link WorkQueues}. Once more than the
+ * configured number of URLs are queued, the half of the in-memory URLs which would be
+ * crawled last is written to a sorted run file. Taking URLs merges the in-memory queue
+ * with the heads of the run files, which are only read sequentially. Run files are merged in
+ * tiers, so that each URL is only rewritten a logarithmic number of times.
+ */
+public class InMemoryWorkQueues implements URLQueue {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryWorkQueues.class);
+
+    // Once there are this many run files of the same level, they are merged into a single
+    // run file of the next level
+    private static final int MERGE_FACTOR = 8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File spillFolder;
+    private final int maxUrlsInMemory;
+
+    private final WebURLTupleBinding webURLBinding = new WebURLTupleBinding();
+
+    /** Encoded URLs which are kept in memory, by the key which determines their order */
+    private final TreeMap<Long, byte[]> urls = new TreeMap<>();
+
+    /** Run files ordered by the key of the URL at their head */
+    private final PriorityQueue<SpillRun> runs = new PriorityQueue<>();
+
+    private long spilledUrls = 0;
+    private int runCounter = 0;
+
+    private final Object mutex = new Object();
+
+    private static class SpillRun implements Comparable<SpillRun> {
+        private final File file;
+        private final DataInputStream in;
+        private final int level;
+        private long unread;
+
+        private long key;
+        private byte[] data;
+
+        SpillRun(File file, long count, int level) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            this.level = level;
+            this.unread = count;
+        }
+
+        /**
+         * Reads the next URL of this run.
+         *
+         * @return false if the run is exhausted
+         */
+        boolean advance() throws IOException {
+            if (unread == 0) {
+                return false;
+            }
+            key = in.readLong();
+            data = new byte[in.readInt()];
+            in.readFully(data);
+            unread--;
+            return true;
+        }
+
+        void delete() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.warn("Could not close frontier run file: {}", file, e);
+            }
+            if (!file.delete()) {
+                logger.warn("Could not delete frontier run file: {}", file);
+            }
+        }
+
+        @Override
+        public int compareTo(SpillRun other) {
+            return Long.compare(key, other.key);
+        }
+    }
+
+    public InMemoryWorkQueues(File spillFolder, int maxUrlsInMemory) {
+        this.spillFolder = spillFolder;
+        this.maxUrlsInMemory = maxUrlsInMemory;
+        if (spillFolder.exists()) {
+            IO.deleteFolderContents(spillFolder);
+        } else if (!spillFolder.mkdirs()) {
+            throw new UncheckedIOException(
+                new IOException("Failed creating the frontier spill folder: " + spillFolder));
+        }
+    }
+
+    /*
+     * Same order as the keys of WorkQueues: priority first, then depth, then docid, all
+     * compared as unsigned numbers.
+     */
+    static long getKey(WebURL url) {
+        byte depth = (url.getDepth() > Byte.MAX_VALUE) ? Byte.MAX_VALUE : (byte) url.getDepth();
+        return ((url.getPriority() & 0xFFL) << 40) | ((depth & 0xFFL) << 32) |
+               (url.getDocid() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void put(WebURL url) {
+        TupleOutput output = new TupleOutput();
+        webURLBinding.objectToEntry(url, output);
+        synchronized (mutex) {
+            urls.put(getKey(url), output.toByteArray());
+            if (urls.size() > maxUrlsInMemory) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not spill the frontier to disk", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void putAll(List<WebURL> urls) {
+        synchronized (mutex) {
+            for (WebURL url : urls) {
+                put(url);
+            }
+        }
+    }
+
+    @Override
+    public List<WebURL> take(int max) {
+        synchronized (mutex) {
+            List<WebURL> results = new ArrayList<>(max);
+            try {
+                while (results.size() < max) {
+                    SpillRun run = runs.peek();
+                    Map.Entry<Long, byte[]> first = urls.firstEntry();
+                    if ((run != null) && ((first == null) || (run.key < first.getKey()))) {
+                        runs.poll();
+                        results.add(decode(run.data));
+                        spilledUrls--;
+                        if (run.advance()) {
+                            runs.add(run);
+                        } else {
+                            run.delete();
+                        }
+                    } else if (first != null) {
+                        urls.pollFirstEntry();
+                        results.add(decode(first.getValue()));
+                    } else {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the frontier from disk", e);
+            }
+            return results;
+        }
+    }
+
+    private WebURL decode(byte[] data) {
+        return webURLBinding.entryToObject(new TupleInput(data));
+    }
+
+    /**
+     * Moves the half of the in-memory URLs which would be crawled last to a new run file.
+     */
+    private void spill() throws IOException {
+        Iterator<Long> keys = urls.descendingKeySet().iterator();
+        Long splitKey = null;
+        for (int i = urls.size() / 2; i > 0; i--) {
+            splitKey = keys.next();
+        }
+        if (splitKey == null) {
+            return;
+        }
+
+        NavigableMap<Long, byte[]> tail = urls.tailMap(splitKey, true);
+        File file = newRunFile();
+        int count = tail.size();
+        try (DataOutputStream out = openRunFile(file)) {
+            for (Map.Entry<Long, byte[]> entry : tail.entrySet()) {
+                writeEntry(out, entry.getKey(), entry.getValue());
+            }
+        }
+        tail.clear();
+        addRun(file, count, 0);
+        logger.debug("Spilled {} URLs of the frontier to {}", count, file);
+
+        mergeRuns(0);
+    }
+
+    /**
+     * Merges the run files of the given level into a single run file of the next level once
+     * there are enough of them, and so on for the next levels. This keeps the number of open
+     * files bounded without rewriting the large run files every time a new one is spilled.
+     */
+    private void mergeRuns(int level) throws IOException {
+        List<SpillRun> merged = new ArrayList<>(MERGE_FACTOR);
+        for (SpillRun run : runs) {
+            if (run.level == level) {
+                merged.add(run);
+            }
+        }
+        if (merged.size() < MERGE_FACTOR) {
+            return;
+        }
+
+        runs.removeAll(merged);
+        PriorityQueue<SpillRun> heads = new PriorityQueue<>(merged);
+        File file = newRunFile();
+        long count = 0;
+        try (DataOutputStream out = openRunFile(file)) {
+            while (!heads.isEmpty()) {
+                SpillRun run = heads.poll();
+                writeEntry(out, run.key, run.data);
+                count++;
+                if (run.advance()) {
+                    heads.add(run);
+                } else {
+                    run.delete();
+                }
+            }
+        }
+        spilledUrls -= count;
+        addRun(file, count, level + 1);
+        logger.debug("Merged {} run files of level {} of the frontier into {}", merged.size(),
+                     level, file);
+
+        mergeRuns(level + 1);
+    }
+
+    private File newRunFile() {
+        return new File(spillFolder, "run-" + (runCounter++) + ".dat");
+    }
+
+    private static DataOutputStream openRunFile(File file) throws IOException {
+        return new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    private static void writeEntry(DataOutputStream out, long key, byte[] data)
+        throws IOException {
+        out.writeLong(key);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private void addRun(File file, long count, int level) throws IOException {
+        SpillRun run = new SpillRun(file, count, level);
+        if (run.advance()) {
+            runs.add(run);
+            spilledUrls += count;
+        } else {
+            run.delete();
+        }
+    }
+
+    @Override
+    public long getLength() {
+        synchronized (mutex) {
+            return urls.size() + spilledUrls;
+        }
+    }
+
+    /**
+     * @return the number of URLs which are currently stored on disk
+     */
+    public long getNumberOfSpilledUrls() {
+        synchronized (mutex) {
+            return spilledUrls;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (mutex) {
+            urls.clear();
+            for (SpillRun run : runs) {
+                run.delete();
+            }
+            runs.clear();
+            spilledUrls = 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.util.List;
+
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * The queue of URLs which are waiting to be crawled. URLs are taken from the queue in the
+ * order of their priority, then the depth at which they were found, then their docid.
+ */
+public interface URLQueue {
+
+    void put(WebURL url);
+
+    /**
+     * Adds all the given URLs to the queue at once.
+     *
+     * @param urls the URLs to add
+     */
+    void putAll(List<WebURL> urls);
+
+    /**
+     * Removes and returns the first (at most) max URLs of the queue.
+     *
+     * @param max maximum number of URLs to return
+     * @return the URLs that were removed from the queue
+     */
+    List<WebURL> take(int max);
+
+    long getLength();
+
+    void close();
+}
@@ -24,12 +24,57 @@ import com.sleepycat.bind.tuple.TupleOutput;
 import edu.uci.ics.crawler4j.url.WebURL;
 
 /**
+ * Binding of the URLs which are stored in the frontier.
+ *
+ * Entries start with a format version, followed by a byte of flags which tell which of
+ * the optional fields are present. Numbers are written as packed integers, and the length
+ * of the domain is stored along with the URL, so the URL does not have to be parsed again
+ * when it is read. The parent URL and the anchor are only written if they are set.
+ *
+ * Entries written before the format was versioned start with the URL itself, and are
+ * still read, so crawls which were started with an older version can be resumed.
+ *
  * @author Yasser Ganjisaffar
  */
 public class WebURLTupleBinding extends TupleBinding<WebURL> {
 
+    private static final byte FORMAT_VERSION = 1;
+
+    /** Versions are below any byte a legacy entry, which starts with its URL, starts with */
+    private static final int MAX_FORMAT_VERSION = 0x1F;
+
+    private static final int HAS_PARENT_URL = 1;
+    private static final int HAS_ANCHOR = 1 << 1;
+
     @Override
     public WebURL entryToObject(TupleInput input) {
+        int version = input.getBufferBytes()[input.getBufferOffset()] & 0xFF;
+        if (version > MAX_FORMAT_VERSION) {
+            return legacyEntryToObject(input);
+        }
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported format version of URL: " + version);
+        }
+        input.skipFast(1);
+
+        int flags = input.readByte();
+        WebURL webURL = new WebURL();
+        String url = input.readString();
+        webURL.setURL(url, input.readPackedInt());
+        webURL.setDocid(input.readPackedInt());
+        webURL.setParentDocid(input.readPackedInt());
+        webURL.setDepth((short) input.readPackedInt());
+        webURL.setPriority(input.readByte());
+        if ((flags & HAS_PARENT_URL) != 0) {
+            webURL.setParentUrl(input.readString());
+        }
+        if ((flags & HAS_ANCHOR) != 0) {
+            webURL.setAnchor(input.readString());
+        }
+        return webURL;
+    }
+
+    private static WebURL legacyEntryToObject(TupleInput input) {
         WebURL webURL = new WebURL();
         webURL.setURL(input.readString());
         webURL.setDocid(input.readInt());
@@ -43,12 +88,26 @@ public class WebURLTupleBinding extends TupleBinding<WebURL> {
 
     @Override
     public void objectToEntry(WebURL url, TupleOutput output) {
+        int flags = 0;
+        if (url.getParentUrl() != null) {
+            flags |= HAS_PARENT_URL;
+        }
+        if (url.getAnchor() != null) {
+            flags |= HAS_ANCHOR;
+        }
+        output.writeByte(FORMAT_VERSION);
+        output.writeByte(flags);
         output.writeString(url.getURL());
-        output.writeInt(url.getDocid());
-        output.writeInt(url.getParentDocid());
-        output.writeString(url.getParentUrl());
-        output.writeShort(url.getDepth());
+        output.writePackedInt(url.getDomain().length());
+        output.writePackedInt(url.getDocid());
+        output.writePackedInt(url.getParentDocid());
+        output.writePackedInt(url.getDepth());
         output.writeByte(url.getPriority());
-        output.writeString(url.getAnchor());
+        if (url.getParentUrl() != null) {
+            output.writeString(url.getParentUrl());
+        }
+        if (url.getAnchor() != null) {
+            output.writeString(url.getAnchor());
+        }
     }
-}
\ No newline at end of file
+}
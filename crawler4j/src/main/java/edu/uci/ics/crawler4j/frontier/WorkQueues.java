@@ -24,6 +24,7 @@ import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.Transaction;
@@ -34,13 +35,13 @@ import edu.uci.ics.crawler4j.util.Util;
 /**
  * @author Yasser Ganjisaffar
  */
-public class WorkQueues {
+public class WorkQueues implements URLQueue {
     private final Database urlsDB;
     private final Environment env;
 
     private final boolean resumable;
 
-    private final WebURLTupleBinding webURLBinding;
+    protected final WebURLTupleBinding webURLBinding;
 
     protected final Object mutex = new Object();
 
@@ -65,6 +66,12 @@ public class WorkQueues {
         }
     }
 
+    protected static void abort(Transaction txn) {
+        if (txn != null) {
+            txn.abort();
+        }
+    }
+
     protected Cursor openCursor(Transaction txn) {
         return urlsDB.openCursor(txn, null);
     }
@@ -91,6 +98,45 @@ public class WorkQueues {
         }
     }
 
+    @Override
+    public List<WebURL> take(int max) {
+        return take(max, null);
+    }
+
+    /**
+     * Removes and returns the first (at most) max URLs of the queue in a single cursor pass.
+     * If given, the URLs are added to the list of in-process pages within the same
+     * transaction, so that a crash can not lose URLs which were taken but not yet recorded.
+     *
+     * @param max maximum number of URLs to return
+     * @param inProcessPages the in-process pages to add the URLs to, or null
+     * @return the URLs that were removed from the queue
+     */
+    public List<WebURL> take(int max, InProcessPagesDB inProcessPages) {
+        synchronized (mutex) {
+            List<WebURL> results = new ArrayList<>(max);
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            Transaction txn = beginTransaction();
+            try (Cursor cursor = openCursor(txn)) {
+                OperationStatus result = cursor.getFirst(key, value, null);
+                while ((results.size() < max) && (result == OperationStatus.SUCCESS)) {
+                    if (value.getData().length > 0) {
+                        WebURL url = webURLBinding.entryToObject(value);
+                        results.add(url);
+                        if (inProcessPages != null) {
+                            inProcessPages.put(txn, url, value);
+                        }
+                    }
+                    cursor.delete();
+                    result = cursor.getNext(key, value, null);
+                }
+            }
+            commit(txn);
+            return results;
+        }
+    }
+
     public void delete(int count) {
         synchronized (mutex) {
             DatabaseEntry key = new DatabaseEntry();
@@ -120,7 +166,7 @@ public class WorkQueues {
      * If depth is also equal, those found earlier (therefore, smaller docid) will
      * be crawled earlier.
      */
-    protected static DatabaseEntry getDatabaseEntryKey(WebURL url) {
+    protected DatabaseEntry getDatabaseEntryKey(WebURL url) {
         byte[] keyData = new byte[6];
         keyData[0] = url.getPriority();
         keyData[1] = ((url.getDepth() > Byte.MAX_VALUE) ? Byte.MAX_VALUE : (byte) url.getDepth());
@@ -128,18 +174,47 @@ public class WorkQueues {
         return new DatabaseEntry(keyData);
     }
 
+    @Override
     public void put(WebURL url) {
         DatabaseEntry value = new DatabaseEntry();
         webURLBinding.objectToEntry(url, value);
         Transaction txn = beginTransaction();
-        urlsDB.put(txn, getDatabaseEntryKey(url), value);
+        put(txn, url, value);
+        commit(txn);
+    }
+
+    /**
+     * Adds all the given URLs within a single transaction.
+     */
+    @Override
+    public void putAll(List<WebURL> urls) {
+        DatabaseEntry value = new DatabaseEntry();
+        Transaction txn = beginTransaction();
+        try {
+            for (WebURL url : urls) {
+                webURLBinding.objectToEntry(url, value);
+                put(txn, url, value);
+            }
+        } catch (DatabaseException e) {
+            abort(txn);
+            throw e;
+        }
         commit(txn);
     }
 
+    /**
+     * Stores an already encoded URL as part of the given transaction.
+     */
+    protected void put(Transaction txn, WebURL url, DatabaseEntry value) {
+        urlsDB.put(txn, getDatabaseEntryKey(url), value);
+    }
+
+    @Override
     public long getLength() {
         return urlsDB.count();
     }
 
+    @Override
     public void close() {
         urlsDB.close();
     }
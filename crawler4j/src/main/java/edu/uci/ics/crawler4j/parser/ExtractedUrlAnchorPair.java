@@ -1,5 +1,6 @@
 package edu.uci.ics.crawler4j.parser;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,7 +9,7 @@ public class ExtractedUrlAnchorPair {
     private String href;
     private String anchor;
     private String tag;
-    private Map<String, String> attributes = new HashMap<String, String>();
+    private Map<String, String> attributes = Collections.emptyMap();
 
     public String getHref() {
         return href;
@@ -47,6 +48,10 @@ public class ExtractedUrlAnchorPair {
     }
 
     public void setAttribute(String name, String val) {
+        if (attributes.isEmpty()) {
+            // Most urls have no attributes, the map is only created when it is needed
+            attributes = new HashMap<>();
+        }
         attributes.put(name, val);
     }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -59,26 +60,82 @@ public class HtmlContentHandler extends DefaultHandler {
         }
     }
 
+    private String title;
     private String base;
     private String metaRefresh;
     private String metaLocation;
-    private final Map<String, String> metaTags = new HashMap<>();
+    private Map<String, String> metaTags = new HashMap<>();
 
     private boolean isWithinBodyElement;
-    private final StringBuilder bodyText;
+    private final int maxBodyTextLength;
+    private StringBuilder bodyText;
 
     private final List<ExtractedUrlAnchorPair> outgoingUrls;
 
+    /** Attributes of links which are kept, or null to keep all of them */
+    private final Set<String> linkAttributes;
+
     private ExtractedUrlAnchorPair curUrl = null;
     private boolean anchorFlag = false;
+
+    /**
+     * Anchor text of the current link, without leading whitespace and with newlines and tabs
+     * replaced by spaces. It is reused for all the links of the page.
+     */
     private final StringBuilder anchorText = new StringBuilder();
 
+    /** Whether the anchor text is known to be longer than the maximum */
+    private boolean anchorTextComplete = false;
+
     public HtmlContentHandler() {
+        this(true);
+    }
+
+    /**
+     * @param collectBodyText whether the text of the body is collected, or only the outgoing
+     *                        urls with their anchor texts and the meta tags
+     */
+    public HtmlContentHandler(boolean collectBodyText) {
+        this(collectBodyText ? -1 : 0, null);
+    }
+
+    /**
+     * @param maxBodyTextLength max number of characters of the body text which are collected,
+     *                          or -1 for no limit
+     * @param linkAttributes names of the attributes of links which are kept, or null to keep
+     *                       all of them
+     */
+    public HtmlContentHandler(int maxBodyTextLength, Set<String> linkAttributes) {
+        this.maxBodyTextLength = (maxBodyTextLength < 0) ? Integer.MAX_VALUE : maxBodyTextLength;
+        this.linkAttributes = linkAttributes;
         isWithinBodyElement = false;
         bodyText = new StringBuilder();
         outgoingUrls = new ArrayList<>();
     }
 
+    /**
+     * Prepares the handler to parse another page. The buffers which are only used while
+     * parsing are reused, but the body text and the meta tags are replaced, as they are kept by
+     * the parse data of the previous page.
+     */
+    public void reset() {
+        title = null;
+        base = null;
+        metaRefresh = null;
+        metaLocation = null;
+        metaTags = new HashMap<>();
+
+        isWithinBodyElement = false;
+        // Pages of a site tend to have texts of similar lengths
+        bodyText = new StringBuilder(Math.max(bodyText.length(), 16));
+
+        outgoingUrls.clear();
+        curUrl = null;
+        anchorFlag = false;
+        anchorText.setLength(0);
+        anchorTextComplete = false;
+    }
+
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes)
         throws SAXException {
@@ -152,8 +209,9 @@ public class HtmlContentHandler extends DefaultHandler {
         curUrl.setTag(tag);
         for (int x = 0; x < attributes.getLength(); x++) {
             String attrName = attributes.getLocalName(x);
-            String attrVal = attributes.getValue(attrName);
-            curUrl.setAttribute(attrName, attrVal);
+            if ((linkAttributes == null) || linkAttributes.contains(attrName)) {
+                curUrl.setAttribute(attrName, attributes.getValue(attrName));
+            }
         }
         outgoingUrls.add(curUrl);
     }
@@ -164,16 +222,19 @@ public class HtmlContentHandler extends DefaultHandler {
         if ((element == Element.A) || (element == Element.AREA) || (element == Element.LINK)) {
             anchorFlag = false;
             if (curUrl != null) {
-                String anchor =
-                    anchorText.toString().replaceAll("\n", " ").replaceAll("\t", " ").trim();
-                if (!anchor.isEmpty()) {
-                    if (anchor.length() > MAX_ANCHOR_LENGTH) {
-                        anchor = anchor.substring(0, MAX_ANCHOR_LENGTH) + "...";
-                    }
+                int length = anchorText.length();
+                while ((length > 0) && (anchorText.charAt(length - 1) <= ' ')) {
+                    length--;
+                }
+                if (length > 0) {
+                    String anchor = (length > MAX_ANCHOR_LENGTH) ?
+                                    anchorText.substring(0, MAX_ANCHOR_LENGTH) + "..." :
+                                    anchorText.substring(0, length);
                     curUrl.setTag(localName);
                     curUrl.setAnchor(anchor);
                 }
-                anchorText.delete(0, anchorText.length());
+                anchorText.setLength(0);
+                anchorTextComplete = false;
             }
             curUrl = null;
         } else if (element == Element.BODY) {
@@ -184,12 +245,34 @@ public class HtmlContentHandler extends DefaultHandler {
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
         if (isWithinBodyElement) {
-            if (bodyText.length() > 0) {
-                bodyText.append(' ');
+            int remaining = maxBodyTextLength - bodyText.length();
+            if (remaining > 0) {
+                if (bodyText.length() > 0) {
+                    bodyText.append(' ');
+                    remaining--;
+                }
+                bodyText.append(ch, start, Math.min(length, remaining));
             }
-            bodyText.append(ch, start, length);
             if (anchorFlag) {
-                anchorText.append(new String(ch, start, length));
+                appendAnchorText(ch, start, length);
+            }
+        }
+    }
+
+    /**
+     * Appends to the anchor text as if it was trimmed and had its newlines and tabs replaced
+     * when the link ends, until it is known to be longer than the maximum anchor length.
+     */
+    private void appendAnchorText(char[] ch, int start, int length) {
+        for (int i = start; (i < start + length) && !anchorTextComplete; i++) {
+            char c = ch[i];
+            if (c <= ' ') {
+                if (anchorText.length() > 0) {
+                    anchorText.append(((c == '\n') || (c == '\t')) ? ' ' : c);
+                }
+            } else {
+                anchorText.append(c);
+                anchorTextComplete = anchorText.length() > MAX_ANCHOR_LENGTH;
             }
         }
     }
@@ -198,10 +281,29 @@ public class HtmlContentHandler extends DefaultHandler {
         return bodyText.toString();
     }
 
+    /**
+     * @return the body text as it has been collected so far, without copying it
+     */
+    CharSequence getBodyTextBuffer() {
+        return bodyText;
+    }
+
     public List<ExtractedUrlAnchorPair> getOutgoingUrls() {
         return outgoingUrls;
     }
 
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @param title the title of the page, which the html parser reports separately from the
+     *              other elements
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
     public String getBaseUrl() {
         return base;
     }
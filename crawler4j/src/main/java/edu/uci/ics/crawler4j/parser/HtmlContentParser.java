@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.parser;
+
+import java.io.InputStream;
+
+import edu.uci.ics.crawler4j.crawler.Page;
+
+/**
+ * Parses the content of html pages, reporting their elements to a {@link HtmlContentHandler}
+ * which extracts the outgoing urls, the meta tags and the text.
+ */
+public interface HtmlContentParser {
+
+    /**
+     * @param page the page which is parsed. Its content charset is set if it is not known yet
+     *             and has been detected while parsing.
+     * @param input the content of the page
+     * @param contentHandler the handler which receives the elements of the page, and the title
+     * @throws Exception if the content can not be parsed
+     */
+    void parse(Page page, InputStream input, HtmlContentHandler contentHandler) throws Exception;
+}
@@ -17,11 +17,16 @@
 
 package edu.uci.ics.crawler4j.parser;
 
+import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.Set;
 
 import edu.uci.ics.crawler4j.url.WebURL;
 
+/**
+ * The parse data of an html page. The html and the text of the page are only turned into
+ * strings when they are first asked for, since many crawlers only need the outgoing urls.
+ */
 public class HtmlParseData implements ParseData {
 
     private String html;
@@ -31,20 +36,61 @@ public class HtmlParseData implements ParseData {
 
     private Set<WebURL> outgoingUrls;
 
+    /** Raw content and its charset, from which the html is decoded on first access */
+    private byte[] content;
+    private Charset contentCharset;
+
+    /** Body text collected by the parser, from which the text is built on first access */
+    private CharSequence bodyText;
+
     public String getHtml() {
+        if ((html == null) && (content != null)) {
+            html = (contentCharset == null) ? new String(content) :
+                   new String(content, contentCharset);
+            content = null;
+        }
         return html;
     }
 
     public void setHtml(String html) {
         this.html = html;
+        this.content = null;
+    }
+
+    /**
+     * Sets the raw content of the page, which is only decoded when the html is asked for.
+     *
+     * @param content the raw content of the page, or null if it has not been retained
+     * @param charset the charset of the content, or null for the platform's default charset
+     */
+    public void setHtmlContent(byte[] content, Charset charset) {
+        this.html = null;
+        this.content = content;
+        this.contentCharset = charset;
     }
 
     public String getText() {
+        if ((text == null) && (bodyText != null)) {
+            text = bodyText.toString().trim();
+            bodyText = null;
+        }
         return text;
     }
 
     public void setText(String text) {
         this.text = text;
+        this.bodyText = null;
+    }
+
+    /**
+     * Sets the body text of the page, which is only trimmed and turned into a string when the
+     * text is asked for.
+     *
+     * @param bodyText the body text of the page, which must not change afterwards
+     */
+    public void setBodyText(CharSequence bodyText) {
+        this.text = null;
+        this.bodyText = bodyText;
     }
 
     public String getTitle() {
@@ -79,6 +125,6 @@ public class HtmlParseData implements ParseData {
 
     @Override
     public String toString() {
-        return text;
+        return getText();
     }
 }
\ No newline at end of file
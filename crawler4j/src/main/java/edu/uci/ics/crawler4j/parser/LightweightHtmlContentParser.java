@@ -0,0 +1,625 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import edu.uci.ics.crawler4j.crawler.Page;
+
+/**
+ * A parser for crawls which mostly need the outgoing links of html pages. Instead of building
+ * a document, it scans the raw bytes of a page for its tags and reports them, with their
+ * attributes and the text in between, to the content handler as Tika's parser would.
+ *
+ * Markup is recognized byte by byte, so pages are only parsed this way if their charset
+ * encodes all ASCII characters as their own single byte and uses bytes below 0x80 for nothing
+ * else, like UTF-8, the ISO-8859 and windows-125x charsets or EUC-JP. Other pages, e.g. in
+ * Shift_JIS or in the stateful ISO-2022 charsets, are parsed with Tika. If neither the
+ * response nor the page declare a charset, UTF-8 is assumed.
+ *
+ * The page is tokenized while it is read, through a buffer which only grows when a single tag,
+ * comment, run of text or script is larger than it.
+ *
+ * Unlike Tika, the parser does not repair the structure of a page beyond closing void elements
+ * and nested links, and the text of scripts and style sheets is skipped, so the text of a
+ * page may differ slightly from the one extracted by Tika.
+ */
+public class LightweightHtmlContentParser implements HtmlContentParser {
+
+    /** Number of bytes at the beginning of a page which are searched for its charset */
+    private static final int CHARSET_SNIFF_LENGTH = 1024;
+
+    /** Initial size of the buffer through which pages are read */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final Pattern META_CHARSET =
+        Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    /** Charsets in which the bytes below 0x80 always stand for the ASCII characters */
+    private static final Set<String> ASCII_COMPATIBLE_CHARSETS = new HashSet<>(Arrays.asList(
+        "UTF-8", "US-ASCII", "ISO-8859-1", "ISO-8859-2", "ISO-8859-3", "ISO-8859-4", "ISO-8859-5",
+        "ISO-8859-6", "ISO-8859-7", "ISO-8859-8", "ISO-8859-9", "ISO-8859-13", "ISO-8859-15",
+        "ISO-8859-16", "windows-1250", "windows-1251", "windows-1252", "windows-1253",
+        "windows-1254", "windows-1255", "windows-1256", "windows-1257", "windows-1258",
+        "KOI8-R", "KOI8-U", "IBM866", "EUC-JP", "EUC-KR", "GB2312"));
+
+    /** Elements which have no content and thus no end tag */
+    private static final int VOID = 1;
+
+    /** Elements which may appear before the body, without starting it */
+    private static final int HEAD = 2;
+
+    /** Elements whose content is text up to their end tag, rather than markup */
+    private static final int RAW_TEXT = 4;
+
+    private static final Map<String, Integer> ELEMENT_FLAGS = new HashMap<>();
+
+    static {
+        for (String name : new String[] {"area", "base", "br", "col", "embed", "hr", "img",
+                                         "input", "link", "meta", "param", "source", "track",
+                                         "wbr"}) {
+            ELEMENT_FLAGS.merge(name, VOID, (a, b) -> a | b);
+        }
+        for (String name : new String[] {"html", "head", "title", "meta", "link", "base",
+                                         "script", "style"}) {
+            ELEMENT_FLAGS.merge(name, HEAD, (a, b) -> a | b);
+        }
+        for (String name : new String[] {"script", "style", "title", "textarea"}) {
+            ELEMENT_FLAGS.merge(name, RAW_TEXT, (a, b) -> a | b);
+        }
+    }
+
+    private final HtmlContentParser fallbackParser;
+
+    public LightweightHtmlContentParser() throws InstantiationException, IllegalAccessException {
+        this(new TikaHtmlContentParser());
+    }
+
+    /**
+     * @param fallbackParser the parser for the pages whose charset does not encode markup like
+     *                       ASCII
+     */
+    public LightweightHtmlContentParser(HtmlContentParser fallbackParser) {
+        this.fallbackParser = fallbackParser;
+    }
+
+    @Override
+    public void parse(Page page, InputStream input, HtmlContentHandler contentHandler)
+        throws Exception {
+        byte[] data = new byte[BUFFER_SIZE];
+        int length = read(input, data, 0);
+
+        int start = 0;
+        boolean utf8Bom = (length >= 3) && (data[0] == (byte) 0xEF) &&
+                          (data[1] == (byte) 0xBB) && (data[2] == (byte) 0xBF);
+        Charset charset = getCharset(page, data, length, utf8Bom);
+        if ((charset == null) || !isAsciiCompatible(charset)) {
+            InputStream content = new ByteArrayInputStream(data, 0, length);
+            if (length == data.length) {
+                content = new SequenceInputStream(content, input);
+            }
+            fallbackParser.parse(page, content, contentHandler);
+            return;
+        }
+        if (page.getContentCharset() == null) {
+            page.setContentCharset(charset.name());
+        }
+        if (utf8Bom && charset.equals(StandardCharsets.UTF_8)) {
+            start = 3;
+        }
+
+        new Tokenizer(input, data, length, charset, contentHandler).run(start);
+    }
+
+    /**
+     * Reads from the input until the buffer is full or the input ends.
+     *
+     * @return the end of the data in the buffer, which is before the end of the buffer if and
+     *         only if the input has ended
+     */
+    private static int read(InputStream input, byte[] data, int from) throws IOException {
+        int length = from;
+        while (length < data.length) {
+            int n = input.read(data, length, data.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        return length;
+    }
+
+    /**
+     * @return the charset of the page, or null if it is not known or not supported
+     */
+    private static Charset getCharset(Page page, byte[] data, int length, boolean utf8Bom) {
+        String name = page.getContentCharset();
+        if (name == null) {
+            if (utf8Bom) {
+                return StandardCharsets.UTF_8;
+            }
+            if ((length >= 2) && (((data[0] == (byte) 0xFE) && (data[1] == (byte) 0xFF)) ||
+                                  ((data[0] == (byte) 0xFF) && (data[1] == (byte) 0xFE)))) {
+                return null;
+            }
+            String prefix = new String(data, 0, Math.min(length, CHARSET_SNIFF_LENGTH),
+                                       StandardCharsets.ISO_8859_1);
+            Matcher matcher = META_CHARSET.matcher(prefix);
+            name = matcher.find() ? matcher.group(1) : StandardCharsets.UTF_8.name();
+        }
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return ASCII_COMPATIBLE_CHARSETS.contains(charset.name());
+    }
+
+    /**
+     * Scans the tags and the text of a page and reports them to the content handler.
+     *
+     * Tokens are only reported once they are complete in the buffer. Scanning methods return
+     * {@link #MORE} when the end of the buffer is reached before the end of the input, and the
+     * token is scanned again after more of the input has been read. While the input has not
+     * ended, {@link #end} is the end of the buffered data rather than of the page.
+     */
+    private static class Tokenizer {
+        /** Returned instead of a position when a token is not complete in the buffer */
+        private static final int MORE = -2;
+
+        private final InputStream input;
+        private final Charset charset;
+        private final HtmlContentHandler handler;
+
+        private byte[] data;
+        private int end;
+        private boolean eof;
+
+        private boolean bodyStarted = false;
+        private boolean anchorOpen = false;
+
+        Tokenizer(InputStream input, byte[] data, int end, Charset charset,
+                  HtmlContentHandler handler) {
+            this.input = input;
+            this.data = data;
+            this.end = end;
+            this.eof = end < data.length;
+            this.charset = charset;
+            this.handler = handler;
+        }
+
+        void run(int start) throws IOException, SAXException {
+            int pos = start;
+            while (true) {
+                int next = (pos < end) ? token(pos) : MORE;
+                if (next != MORE) {
+                    pos = next;
+                } else if (eof) {
+                    break;
+                } else {
+                    fill(pos);
+                    pos = 0;
+                }
+            }
+            if (anchorOpen) {
+                endElement("a");
+            }
+            if (bodyStarted) {
+                handler.endElement("", "body", "body");
+            }
+        }
+
+        /**
+         * Moves the data from the given position to the start of the buffer, growing it if the
+         * data fills it, and reads as much more of the input as fits into it.
+         */
+        private void fill(int from) throws IOException {
+            int length = end - from;
+            if (from > 0) {
+                System.arraycopy(data, from, data, 0, length);
+            } else if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            end = read(input, data, length);
+            eof = end < data.length;
+        }
+
+        /**
+         * Reports the text or the tag which starts at the given position.
+         *
+         * @return the position after it, or {@link #MORE}
+         */
+        private int token(int pos) throws SAXException {
+            int lt = indexOfTag(pos);
+            if (lt == pos) {
+                return tag(lt);
+            }
+            if ((lt == end) && !eof) {
+                // The text may go on after the buffered data
+                return MORE;
+            }
+            text(pos, lt);
+            return lt;
+        }
+
+        /**
+         * @return the position after the tag which starts at the given position, or
+         *         {@link #MORE}
+         */
+        private int tag(int lt) throws SAXException {
+            int pos = lt + 1;
+            byte b = data[pos];
+            if (b == '!') {
+                if ((pos + 3 > end) && !eof) {
+                    return MORE;
+                }
+                if (regionMatches(pos, "!--")) {
+                    int close = indexOf("-->", pos + 3);
+                    return (close >= 0) ? (close + 3) : (eof ? end : MORE);
+                }
+                return skipPast((byte) '>', pos);
+            } else if (b == '?') {
+                return skipPast((byte) '>', pos);
+            } else if (b == '/') {
+                int nameEnd = scanName(pos + 1);
+                int next = skipPast((byte) '>', nameEnd);
+                if (next == MORE) {
+                    return MORE;
+                }
+                if (nameEnd > pos + 1) {
+                    String name = toLowerCase(pos + 1, nameEnd);
+                    endTag(name, ELEMENT_FLAGS.getOrDefault(name, 0));
+                }
+                return next;
+            }
+
+            int nameEnd = scanName(pos);
+            String name = toLowerCase(pos, nameEnd);
+            AttributesImpl attributes = new AttributesImpl();
+            boolean selfClosing = false;
+            boolean closed = false;
+            pos = nameEnd;
+            while (pos < end) {
+                b = data[pos];
+                if (b == '>') {
+                    pos++;
+                    closed = true;
+                    break;
+                } else if (isWhitespace(b) || (b == '/')) {
+                    selfClosing = (b == '/') && (pos + 1 < end) && (data[pos + 1] == '>');
+                    pos++;
+                    continue;
+                }
+                selfClosing = false;
+
+                int attributeStart = pos++;
+                while ((pos < end) && !isWhitespace(data[pos]) && (data[pos] != '=') &&
+                       (data[pos] != '>') && (data[pos] != '/')) {
+                    pos++;
+                }
+                String attribute = toLowerCase(attributeStart, pos);
+                pos = skipWhitespace(pos);
+                String value = "";
+                if ((pos < end) && (data[pos] == '=')) {
+                    pos = skipWhitespace(pos + 1);
+                    if ((pos < end) && ((data[pos] == '"') || (data[pos] == '\''))) {
+                        int valueEnd = indexOf(data[pos], pos + 1);
+                        if (valueEnd < 0) {
+                            valueEnd = end;
+                        }
+                        value = decode(pos + 1, valueEnd);
+                        pos = Math.min(valueEnd + 1, end);
+                    } else {
+                        int valueStart = pos;
+                        while ((pos < end) && !isWhitespace(data[pos]) && (data[pos] != '>')) {
+                            pos++;
+                        }
+                        value = decode(valueStart, pos);
+                    }
+                }
+                if (attributes.getIndex(attribute) < 0) {
+                    attributes.addAttribute("", attribute, attribute, "CDATA", value);
+                }
+            }
+            if (!closed && !eof) {
+                return MORE;
+            }
+
+            int flags = ELEMENT_FLAGS.getOrDefault(name, 0);
+            if (selfClosing || ((flags & RAW_TEXT) == 0)) {
+                startTag(name, flags, attributes, selfClosing);
+                return pos;
+            }
+
+            // The content of the element has to be complete before the element is reported
+            int close = indexOfEndTag(name, pos);
+            int next = (close < 0) ? (eof ? end : MORE) : skipPast((byte) '>', close + 2);
+            if (next == MORE) {
+                return MORE;
+            }
+            startTag(name, flags, attributes, false);
+            int contentEnd = (close < 0) ? end : close;
+            if (name.equals("title")) {
+                if (!bodyStarted && (handler.getTitle() == null)) {
+                    handler.setTitle(decode(pos, contentEnd).trim());
+                }
+            } else if (name.equals("textarea")) {
+                characters(decode(pos, contentEnd));
+            }
+            endTag(name, flags);
+            return next;
+        }
+
+        private void startTag(String name, int flags, AttributesImpl attributes,
+                              boolean selfClosing) throws SAXException {
+            if (name.equals("body") || name.equals("frameset")) {
+                startBody();
+                return;
+            } else if (name.equals("html") || name.equals("head")) {
+                return;
+            }
+            if (!bodyStarted && ((flags & HEAD) == 0)) {
+                startBody();
+            }
+            if (name.equals("a")) {
+                if (anchorOpen) {
+                    // Links can not be nested, the previous link ends here
+                    endElement("a");
+                }
+                anchorOpen = !selfClosing;
+            }
+            handler.startElement("", name, name, attributes);
+            if (selfClosing || ((flags & VOID) != 0)) {
+                endElement(name);
+            }
+        }
+
+        private void endTag(String name, int flags) throws SAXException {
+            if (name.equals("body") || name.equals("frameset") || name.equals("html") ||
+                name.equals("head") || ((flags & VOID) != 0)) {
+                // The body ends with the page, void elements have already ended
+                return;
+            }
+            if (name.equals("a")) {
+                if (!anchorOpen) {
+                    return;
+                }
+                anchorOpen = false;
+            }
+            endElement(name);
+        }
+
+        private void endElement(String name) throws SAXException {
+            handler.endElement("", name, name);
+        }
+
+        private void startBody() throws SAXException {
+            if (!bodyStarted) {
+                bodyStarted = true;
+                handler.startElement("", "body", "body", new AttributesImpl());
+            }
+        }
+
+        private void text(int from, int to) throws SAXException {
+            if (!bodyStarted) {
+                if (skipWhitespace(from) >= to) {
+                    return;
+                }
+                startBody();
+            }
+            characters(decode(from, to));
+        }
+
+        private void characters(String text) throws SAXException {
+            if (!text.isEmpty()) {
+                handler.characters(text.toCharArray(), 0, text.length());
+            }
+        }
+
+        /**
+         * @return the text of the given range, with its character references replaced
+         */
+        private String decode(int from, int to) {
+            String text = new String(data, from, to - from, charset);
+            int amp = text.indexOf('&');
+            if (amp < 0) {
+                return text;
+            }
+            StringBuilder sb = new StringBuilder(text.length());
+            int copied = 0;
+            while (amp >= 0) {
+                int semicolon = text.indexOf(';', amp + 1);
+                if (semicolon < 0) {
+                    break;
+                }
+                int codePoint = (semicolon - amp <= 10) ? getCodePoint(text, amp + 1, semicolon) :
+                                -1;
+                if (codePoint >= 0) {
+                    sb.append(text, copied, amp).appendCodePoint(codePoint);
+                    copied = semicolon + 1;
+                    amp = text.indexOf('&', copied);
+                } else {
+                    amp = text.indexOf('&', amp + 1);
+                }
+            }
+            return sb.append(text, copied, text.length()).toString();
+        }
+
+        /**
+         * @return the code point of the character reference between the given positions, or
+         *         -1 if it is not known
+         */
+        private static int getCodePoint(String text, int from, int to) {
+            if ((to - from >= 2) && (text.charAt(from) == '#')) {
+                try {
+                    char c = text.charAt(from + 1);
+                    int codePoint = ((c == 'x') || (c == 'X')) ?
+                                    Integer.parseInt(text.substring(from + 2, to), 16) :
+                                    Integer.parseInt(text.substring(from + 1, to));
+                    return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+            switch (text.substring(from, to)) {
+                case "amp":
+                    return '&';
+                case "lt":
+                    return '<';
+                case "gt":
+                    return '>';
+                case "quot":
+                    return '"';
+                case "apos":
+                    return '\'';
+                case "nbsp":
+                    return '\u00A0';
+                default:
+                    return -1;
+            }
+        }
+
+        private int scanName(int pos) {
+            while ((pos < end) && (isAsciiLetter(data[pos]) || isAsciiDigit(data[pos]) ||
+                                   (data[pos] == '-') || (data[pos] == ':'))) {
+                pos++;
+            }
+            return pos;
+        }
+
+        private String toLowerCase(int from, int to) {
+            char[] chars = new char[to - from];
+            for (int i = from; i < to; i++) {
+                byte b = data[i];
+                chars[i - from] = ((b >= 'A') && (b <= 'Z')) ? (char) (b + ('a' - 'A')) :
+                                  (char) (b & 0xFF);
+            }
+            return new String(chars);
+        }
+
+        /**
+         * @return the position of the next '<' which starts a tag, a comment or a declaration,
+         *         or the end of the data. Other '<' characters are part of the text, and so is
+         *         a '<' at the end of the data.
+         */
+        private int indexOfTag(int from) {
+            for (int i = indexOf((byte) '<', from); i >= 0; i = indexOf((byte) '<', i + 1)) {
+                if (i + 1 < end) {
+                    byte b = data[i + 1];
+                    if (isAsciiLetter(b) || (b == '/') || (b == '!') || (b == '?')) {
+                        return i;
+                    }
+                }
+            }
+            return end;
+        }
+
+        private int indexOf(byte b, int from) {
+            for (int i = from; i < end; i++) {
+                if (data[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(String s, int from) {
+            for (int i = from; i + s.length() <= end; i++) {
+                if (regionMatches(i, s)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return the position of the end tag of the given element, ignoring case
+         */
+        private int indexOfEndTag(String name, int from) {
+            for (int i = indexOf((byte) '<', from); i >= 0; i = indexOf((byte) '<', i + 1)) {
+                if ((i + 2 + name.length() <= end) && (data[i + 1] == '/') &&
+                    toLowerCase(i + 2, i + 2 + name.length()).equals(name)) {
+                    int next = i + 2 + name.length();
+                    if ((next == end) ? eof : (isWhitespace(data[next]) || (data[next] == '>') ||
+                                               (data[next] == '/'))) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private boolean regionMatches(int pos, String s) {
+            if (pos + s.length() > end) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                if (data[pos + i] != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the position after the next occurrence of the given byte, the end of the
+         *         page if there is none, or {@link #MORE}
+         */
+        private int skipPast(byte b, int from) {
+            int pos = indexOf(b, from);
+            return (pos >= 0) ? (pos + 1) : (eof ? end : MORE);
+        }
+
+        private int skipWhitespace(int pos) {
+            while ((pos < end) && isWhitespace(data[pos])) {
+                pos++;
+            }
+            return pos;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return (b == ' ') || (b == '\t') || (b == '\n') || (b == '\r') || (b == '\f');
+        }
+
+        private static boolean isAsciiLetter(byte b) {
+            return ((b >= 'a') && (b <= 'z')) || ((b >= 'A') && (b <= 'Z'));
+        }
+
+        private static boolean isAsciiDigit(byte b) {
+            return (b >= '0') && (b <= '9');
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.parser;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Memory allocated and garbage collections while the pages of a {@link Parser} are parsed.
+ *
+ * The allocated memory is measured for the parsing thread only, if the JVM supports it.
+ * Garbage collections are counted for the whole JVM, so those which happen while a page is
+ * parsed may have been caused by other threads too.
+ *
+ * The metrics are updated by the parsing thread and may be read by any thread.
+ */
+public class ParseMetrics {
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private static final boolean allocatedBytesSupported = checkAllocatedBytesSupported();
+
+    private volatile long parsedPages;
+    private volatile long allocatedBytes;
+    private volatile long lastPageAllocatedBytes = -1;
+    private volatile long gcCount;
+    private volatile long gcTimeMillis;
+
+    private long pageStartAllocatedBytes;
+    private long pageStartGcCount;
+    private long pageStartGcTimeMillis;
+
+    private static boolean checkAllocatedBytesSupported() {
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+        return bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled();
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (!allocatedBytesSupported) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threadMXBean)
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return the number of garbage collections of the JVM so far, and the time they took
+     */
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(bean.getCollectionCount(), 0);
+            time += Math.max(bean.getCollectionTime(), 0);
+        }
+        return new long[] {count, time};
+    }
+
+    /**
+     * Called by the parsing thread before a page is parsed.
+     */
+    void pageStarted() {
+        long[] gcTotals = gcTotals();
+        pageStartGcCount = gcTotals[0];
+        pageStartGcTimeMillis = gcTotals[1];
+        // Measured last, so that listing the collectors is not counted
+        pageStartAllocatedBytes = currentThreadAllocatedBytes();
+    }
+
+    /**
+     * Called by the parsing thread after a page has been parsed, successfully or not.
+     */
+    void pageFinished() {
+        long allocated = currentThreadAllocatedBytes();
+        long[] gcTotals = gcTotals();
+
+        if ((allocated >= 0) && (pageStartAllocatedBytes >= 0)) {
+            lastPageAllocatedBytes = allocated - pageStartAllocatedBytes;
+            allocatedBytes += lastPageAllocatedBytes;
+        }
+        gcCount += gcTotals[0] - pageStartGcCount;
+        gcTimeMillis += gcTotals[1] - pageStartGcTimeMillis;
+        parsedPages++;
+    }
+
+    /**
+     * Adds the metrics of another parser to these ones, which should not be updated by a
+     * parsing thread at the same time. It is used to sum the metrics of all the crawler threads.
+     */
+    public void add(ParseMetrics other) {
+        parsedPages += other.getParsedPages();
+        allocatedBytes += other.getAllocatedBytes();
+        gcCount += other.getGcCount();
+        gcTimeMillis += other.getGcTimeMillis();
+    }
+
+    /**
+     * @return whether the JVM measures the memory allocated by each thread
+     */
+    public static boolean isAllocatedBytesSupported() {
+        return allocatedBytesSupported;
+    }
+
+    public long getParsedPages() {
+        return parsedPages;
+    }
+
+    /**
+     * @return the bytes allocated while parsing all the pages, or 0 if they are not measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the average bytes allocated while parsing a page, or 0 if no page was parsed
+     */
+    public long getAllocatedBytesPerPage() {
+        long pages = parsedPages;
+        return (pages == 0) ? 0 : (allocatedBytes / pages);
+    }
+
+    /**
+     * @return the bytes allocated while parsing the last page, or -1 if they are not measured
+     */
+    public long getLastPageAllocatedBytes() {
+        return lastPageAllocatedBytes;
+    }
+
+    /**
+     * @return the number of garbage collections while pages were parsed
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * @return the time spent in garbage collections while pages were parsed, in milliseconds
+     */
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pages, %d bytes allocated per page, %d GCs taking %d ms",
+                             getParsedPages(), getAllocatedBytesPerPage(), getGcCount(),
+                             getGcTimeMillis());
+    }
+}
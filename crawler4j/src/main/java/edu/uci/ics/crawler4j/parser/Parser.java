@@ -19,18 +19,14 @@ package edu.uci.ics.crawler4j.parser;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.apache.tika.language.LanguageIdentifier;
-import org.apache.tika.metadata.DublinCore;
-import org.apache.tika.metadata.Metadata;
-import org.apache.tika.parser.ParseContext;
-import org.apache.tika.parser.html.HtmlMapper;
-import org.apache.tika.parser.html.HtmlParser;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,29 +35,119 @@ import edu.uci.ics.crawler4j.crawler.Configurable;
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
 import edu.uci.ics.crawler4j.crawler.Page;
 import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
+import edu.uci.ics.crawler4j.url.CanonicalURLCache;
 import edu.uci.ics.crawler4j.url.URLCanonicalizer;
 import edu.uci.ics.crawler4j.url.WebURL;
 import edu.uci.ics.crawler4j.util.Net;
 import edu.uci.ics.crawler4j.util.Util;
 
 /**
+ * Parses the fetched pages. A parser reuses its buffers from one html page to the next, so it
+ * must not be used by several threads at the same time; each crawler thread has its own.
+ *
  * @author Yasser Ganjisaffar
  */
 public class Parser extends Configurable {
 
     protected static final Logger logger = LoggerFactory.getLogger(Parser.class);
 
-    private final HtmlParser htmlParser;
-    private final ParseContext parseContext;
+    private final HtmlContentParser htmlContentParser;
+    private final CanonicalURLCache canonicalURLCache;
+
+    /** Handler which is reset and reused for every html page parsed by this parser */
+    private final HtmlContentHandler contentHandler;
+
+    /** Metrics of the parsed pages, or null if they are not collected */
+    private final ParseMetrics parseMetrics;
 
     public Parser(CrawlConfig config) throws InstantiationException, IllegalAccessException {
+        this(config, (config.getCanonicalUrlCacheSize() > 0) ?
+                     new CanonicalURLCache(config.getCanonicalUrlCacheSize()) : null);
+    }
+
+    /**
+     * @param config the crawl configuration
+     * @param canonicalURLCache cache for the canonical forms of the outgoing urls, which may
+     *                          be shared with other parsers, or null to disable caching
+     */
+    public Parser(CrawlConfig config, CanonicalURLCache canonicalURLCache)
+        throws InstantiationException, IllegalAccessException {
+        this(config, canonicalURLCache, createHtmlContentParser(config));
+    }
+
+    /**
+     * @param config the crawl configuration
+     * @param canonicalURLCache cache for the canonical forms of the outgoing urls, or null
+     * @param htmlContentParser the parser for html pages, which replaces the one configured by
+     *                          {@link CrawlConfig#getHtmlParserType()}
+     */
+    public Parser(CrawlConfig config, CanonicalURLCache canonicalURLCache,
+                  HtmlContentParser htmlContentParser) {
         super(config);
-        htmlParser = new HtmlParser();
-        parseContext = new ParseContext();
-        parseContext.set(HtmlMapper.class, AllTagMapper.class.newInstance());
+        this.canonicalURLCache = canonicalURLCache;
+        this.htmlContentParser = htmlContentParser;
+        this.contentHandler = new HtmlContentHandler(
+            config.isLinksOnlyParse() ? 0 : config.getMaxTextLength(), getLinkAttributes(config));
+        this.parseMetrics = config.isCollectParseMetrics() ? new ParseMetrics() : null;
+    }
+
+    /**
+     * @return the configured link attributes, with the "rel" attribute added if the crawl
+     *         respects nofollow links, which are recognized by it
+     */
+    private static Set<String> getLinkAttributes(CrawlConfig config) {
+        Set<String> linkAttributes = config.getLinkAttributes();
+        if ((linkAttributes != null) && config.isRespectNoFollow() &&
+            !linkAttributes.contains("rel")) {
+            linkAttributes = new HashSet<>(linkAttributes);
+            linkAttributes.add("rel");
+        }
+        return linkAttributes;
+    }
+
+    private static HtmlContentParser createHtmlContentParser(CrawlConfig config)
+        throws InstantiationException, IllegalAccessException {
+        if (config.getHtmlParserType() == HtmlParserType.LIGHTWEIGHT) {
+            return new LightweightHtmlContentParser();
+        }
+        return new TikaHtmlContentParser();
+    }
+
+    /**
+     * Identifies the language of the text of a page, or only of its beginning if the text is
+     * longer than the configured maximum.
+     */
+    private String identifyLanguage(HtmlParseData parseData, CharSequence bodyText) {
+        int maxLength = config.getLanguageDetectionMaxLength();
+        String text = ((maxLength > 0) && (bodyText.length() > maxLength)) ?
+                      bodyText.subSequence(0, maxLength).toString() : parseData.getText();
+        // Please note that identifying language takes less than 10 milliseconds
+        return new LanguageIdentifier(text).getLanguage();
+    }
+
+    /**
+     * @return the metrics of the pages parsed by this parser, or null if
+     *         {@link CrawlConfig#isCollectParseMetrics()} is not set
+     */
+    public ParseMetrics getParseMetrics() {
+        return parseMetrics;
     }
 
     public void parse(Page page, String contextURL)
+        throws NotAllowedContentException, ParseException {
+        if (parseMetrics == null) {
+            parseContent(page, contextURL);
+            return;
+        }
+        parseMetrics.pageStarted();
+        try {
+            parseContent(page, contextURL);
+        } finally {
+            parseMetrics.pageFinished();
+        }
+    }
+
+    private void parseContent(Page page, String contextURL)
         throws NotAllowedContentException, ParseException {
         if (Util.hasBinaryContent(page.getContentType())) { // BINARY
             BinaryParseData parseData = new BinaryParseData();
@@ -95,28 +181,49 @@ public class Parser extends Configurable {
                 throw new ParseException();
             }
         } else { // isHTML
-            Metadata metadata = new Metadata();
-            HtmlContentHandler contentHandler = new HtmlContentHandler();
-            try (InputStream inputStream = new ByteArrayInputStream(page.getContentData())) {
-                htmlParser.parse(inputStream, contentHandler, metadata, parseContext);
+            contentHandler.reset();
+            // Content which is loaded as a stream is parsed while it is downloaded
+            InputStream contentStream = page.getContentStream();
+            try (InputStream inputStream = (contentStream != null) ? contentStream :
+                                           new ByteArrayInputStream(page.getContentData())) {
+                htmlContentParser.parse(page, inputStream, contentHandler);
             } catch (Exception e) {
                 logger.error("{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
                 throw new ParseException();
             }
 
-            if (page.getContentCharset() == null) {
-                page.setContentCharset(metadata.get("Content-Encoding"));
-            }
-
             HtmlParseData parseData = new HtmlParseData();
-            parseData.setText(contentHandler.getBodyText().trim());
-            parseData.setTitle(metadata.get(DublinCore.TITLE));
+            parseData.setBodyText(contentHandler.getBodyTextBuffer());
+            parseData.setTitle(contentHandler.getTitle());
             parseData.setMetaTags(contentHandler.getMetaTags());
-            // Please note that identifying language takes less than 10 milliseconds
-            LanguageIdentifier languageIdentifier = new LanguageIdentifier(parseData.getText());
-            page.setLanguage(languageIdentifier.getLanguage());
+            LanguageDetection languageDetection = config.getLanguageDetection();
+            if (!config.isLinksOnlyParse() && (languageDetection != LanguageDetection.OFF)) {
+                CharSequence bodyText = contentHandler.getBodyTextBuffer();
+                Supplier<String> language = () -> identifyLanguage(parseData, bodyText);
+                if (languageDetection == LanguageDetection.DEFERRED) {
+                    page.setLanguageSupplier(language);
+                } else {
+                    page.setLanguage(language.get());
+                }
+            }
 
-            Set<WebURL> outgoingUrls = new HashSet<>();
+            // The charset is resolved once for the links and the html of the page
+            Charset charset = null;
+            if (page.getContentCharset() != null) {
+                try {
+                    charset = Charset.forName(page.getContentCharset());
+                } catch (IllegalArgumentException e) {
+                    logger.error("error parsing the html: " + page.getWebURL().getURL(), e);
+                    throw new ParseException();
+                }
+            }
+            // Prefer page's content charset to encode href url
+            Charset hrefCharset = (charset == null) ? StandardCharsets.UTF_8 : charset;
+
+            List<ExtractedUrlAnchorPair> urlAnchorPairs = contentHandler.getOutgoingUrls();
+            int expectedUrls =
+                Math.min(urlAnchorPairs.size(), config.getMaxOutgoingLinksToFollow());
+            Set<WebURL> outgoingUrls = new HashSet<>((int) (expectedUrls / 0.75f) + 1);
 
             String baseURL = contentHandler.getBaseUrl();
             if (baseURL != null) {
@@ -124,7 +231,7 @@ public class Parser extends Configurable {
             }
 
             int urlCount = 0;
-            for (ExtractedUrlAnchorPair urlAnchorPair : contentHandler.getOutgoingUrls()) {
+            for (ExtractedUrlAnchorPair urlAnchorPair : urlAnchorPairs) {
 
                 String href = urlAnchorPair.getHref();
                 if ((href == null) || href.trim().isEmpty()) {
@@ -134,10 +241,9 @@ public class Parser extends Configurable {
                 String hrefLoweredCase = href.trim().toLowerCase();
                 if (!hrefLoweredCase.contains("javascript:") &&
                     !hrefLoweredCase.contains("mailto:") && !hrefLoweredCase.contains("@")) {
-                    // Prefer page's content charset to encode href url
-                    Charset hrefCharset = ((page.getContentCharset() == null) || page.getContentCharset().isEmpty()) ?
-                                          StandardCharsets.UTF_8 : Charset.forName(page.getContentCharset());
-                    String url = URLCanonicalizer.getCanonicalURL(href, contextURL, hrefCharset);
+                    String url = (canonicalURLCache == null) ?
+                                 URLCanonicalizer.getCanonicalURL(href, contextURL, hrefCharset) :
+                                 canonicalURLCache.getCanonicalURL(href, contextURL, hrefCharset);
                     if (url != null) {
                         WebURL webURL = new WebURL();
                         webURL.setURL(url);
@@ -154,18 +260,9 @@ public class Parser extends Configurable {
             }
             parseData.setOutgoingUrls(outgoingUrls);
 
-            try {
-                if (page.getContentCharset() == null) {
-                    parseData.setHtml(new String(page.getContentData()));
-                } else {
-                    parseData.setHtml(new String(page.getContentData(), page.getContentCharset()));
-                }
-
-                page.setParseData(parseData);
-            } catch (UnsupportedEncodingException e) {
-                logger.error("error parsing the html: " + page.getWebURL().getURL(), e);
-                throw new ParseException();
-            }
+            // The html is only decoded if it is asked for
+            parseData.setHtmlContent(page.getContentData(), charset);
+            page.setParseData(parseData);
         }
     }
 }
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.parser;
+
+import java.io.InputStream;
+
+import org.apache.tika.metadata.DublinCore;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.html.HtmlMapper;
+import org.apache.tika.parser.html.HtmlParser;
+
+import edu.uci.ics.crawler4j.crawler.Page;
+
+/**
+ * Parses html pages with Tika's {@link HtmlParser}, mapping all of their tags.
+ */
+public class TikaHtmlContentParser implements HtmlContentParser {
+
+    private final HtmlParser htmlParser;
+    private final ParseContext parseContext;
+
+    public TikaHtmlContentParser() throws InstantiationException, IllegalAccessException {
+        htmlParser = new HtmlParser();
+        parseContext = new ParseContext();
+        parseContext.set(HtmlMapper.class, AllTagMapper.class.newInstance());
+    }
+
+    @Override
+    public void parse(Page page, InputStream input, HtmlContentHandler contentHandler)
+        throws Exception {
+        Metadata metadata = new Metadata();
+        htmlParser.parse(input, contentHandler, metadata, parseContext);
+
+        if (page.getContentCharset() == null) {
+            page.setContentCharset(metadata.get("Content-Encoding"));
+        }
+        contentHandler.setTitle(metadata.get(DublinCore.TITLE));
+    }
+}
@@ -136,6 +136,25 @@ public class HostDirectives {
         return result;
     }
 
+    /**
+     * Get the Crawl-delay which applies to the configured user agent. The delay of the most
+     * specific matching set of directives which specifies one is used.
+     *
+     * @return The crawl delay in seconds, or null if none was specified
+     */
+    public Double getCrawlDelay() {
+        String myUA = config.getUserAgentName();
+        for (UserAgentDirectives ua : rules) {
+            if (ua.match(myUA) == 0) {
+                break;
+            }
+            if (ua.getCrawlDelay() != null) {
+                return ua.getCrawlDelay();
+            }
+        }
+        return null;
+    }
+
     /**
      * Store set of directives
      *
@@ -46,6 +46,18 @@ public class RobotstxtConfig {
      */
     private int cacheSize = 500;
 
+    /**
+     * Should the Crawl-delay of robots.txt be obeyed? If so, the delay between two requests
+     * to a host is the larger of the politeness delay and the Crawl-delay of that host.
+     */
+    private boolean respectCrawlDelay = true;
+
+    /**
+     * Upper limit in milliseconds for the Crawl-delay of robots.txt, so that a host can not
+     * make the crawler wait for it for hours.
+     */
+    private long maxCrawlDelay = 30000;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -77,4 +89,20 @@ public class RobotstxtConfig {
     public boolean getIgnoreUADiscrimination() {
         return ignoreUADiscrimination;
     }
+
+    public boolean isRespectCrawlDelay() {
+        return respectCrawlDelay;
+    }
+
+    public void setRespectCrawlDelay(boolean respectCrawlDelay) {
+        this.respectCrawlDelay = respectCrawlDelay;
+    }
+
+    public long getMaxCrawlDelay() {
+        return maxCrawlDelay;
+    }
+
+    public void setMaxCrawlDelay(long maxCrawlDelay) {
+        this.maxCrawlDelay = maxCrawlDelay;
+    }
 }
@@ -94,6 +94,37 @@ public class RobotstxtServer {
         return true;
     }
 
+    /**
+     * Get the Crawl-delay which the robots.txt of the host of the given URL asks for. Only
+     * robots.txt files which are already cached are consulted, nothing is fetched here.
+     *
+     * @param webURL The URL which is about to be fetched
+     * @return The crawl delay in milliseconds, limited to the configured maximum, or 0 if
+     *         the host has no (known) Crawl-delay
+     */
+    public long getCrawlDelay(WebURL webURL) {
+        if (!config.isEnabled() || !config.isRespectCrawlDelay()) {
+            return 0;
+        }
+        HostDirectives directives;
+        try {
+            String host = getHost(new URL(webURL.getURL()));
+            synchronized (host2directivesCache) {
+                directives = host2directivesCache.get(host);
+            }
+        } catch (MalformedURLException e) {
+            return 0;
+        }
+        if (directives == null) {
+            return 0;
+        }
+        Double crawlDelay = directives.getCrawlDelay();
+        if ((crawlDelay == null) || (crawlDelay <= 0)) {
+            return 0;
+        }
+        return Math.min((long) (crawlDelay * 1000), config.getMaxCrawlDelay());
+    }
+
     private HostDirectives fetchDirectives(URL url) {
         WebURL robotsTxtUrl = new WebURL();
         String host = getHost(url);
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.url;
+
+import java.nio.charset.Charset;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A bounded cache of canonical urls, which can be shared by the crawler threads. Pages of a
+ * site mostly link to the same navigation urls, so the same hrefs are canonicalized in the
+ * same context over and over again.
+ *
+ * The canonical form of an href only depends on the scheme, the location and the directory
+ * of its context url, which together form the key of an entry, rather than the whole
+ * context url. Hrefs which depend on the rest of the context url, such as "?page=2", are
+ * canonicalized without the cache.
+ */
+public class CanonicalURLCache {
+
+    private final Cache<Key, Optional<String>> cache;
+
+    private static final class Key {
+        private final String context;
+        private final int directoryLength;
+        private final String href;
+        private final Charset charset;
+        private final int hash;
+
+        Key(String context, int directoryLength, String href, Charset charset) {
+            this.context = context;
+            this.directoryLength = directoryLength;
+            this.href = href;
+            this.charset = charset;
+            int directoryHash = 0;
+            for (int i = 0; i < directoryLength; i++) {
+                directoryHash = (31 * directoryHash) + context.charAt(i);
+            }
+            this.hash =
+                (31 * ((31 * directoryHash) + href.hashCode())) + Objects.hashCode(charset);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return (hash == other.hash) && (directoryLength == other.directoryLength) &&
+                   href.equals(other.href) && Objects.equals(charset, other.charset) &&
+                   context.regionMatches(0, other.context, 0, directoryLength);
+        }
+    }
+
+    /**
+     * @param maximumSize maximum number of canonical urls to keep
+     */
+    public CanonicalURLCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * Same as {@link URLCanonicalizer#getCanonicalURL(String, String, Charset)}, with the
+     * result taken from the cache if the href has been canonicalized in the same directory
+     * before.
+     */
+    public String getCanonicalURL(String href, String context, Charset charset) {
+        int directoryLength = getDirectoryLength(href, context);
+        if (directoryLength < 0) {
+            return URLCanonicalizer.getCanonicalURL(href, context, charset);
+        }
+        Key key = new Key(context, directoryLength, href, charset);
+        Optional<String> canonicalURL = cache.getIfPresent(key);
+        if (canonicalURL == null) {
+            canonicalURL =
+                Optional.ofNullable(URLCanonicalizer.getCanonicalURL(href, context, charset));
+            cache.put(key, canonicalURL);
+        }
+        return canonicalURL.orElse(null);
+    }
+
+    /**
+     * @return the length of the part of the context url up to and including its directory,
+     *         or -1 if the href can not be cached
+     */
+    private static int getDirectoryLength(String href, String context) {
+        if ((href == null) || (context == null)) {
+            return -1;
+        }
+        String trimmedHref = href.trim();
+        if (trimmedHref.isEmpty() || (trimmedHref.charAt(0) == '?') ||
+            (trimmedHref.charAt(0) == '#') || (trimmedHref.charAt(0) == ';')) {
+            // Resolved against the whole path, query or fragment of the context url
+            return -1;
+        }
+
+        int locationStart = context.indexOf("://");
+        if (locationStart <= 0) {
+            return -1;
+        }
+        locationStart += 3;
+        int pathEnd = context.length();
+        for (int i = locationStart; i < context.length(); i++) {
+            char c = context.charAt(i);
+            if ((c == '?') || (c == '#') || (c == ';')) {
+                pathEnd = i;
+                break;
+            }
+        }
+        int locationEnd = context.indexOf('/', locationStart);
+        if ((locationEnd < 0) || (locationEnd > pathEnd)) {
+            // Without a path, the resolution depends on the whole context url
+            return -1;
+        }
+        return context.lastIndexOf('/', pathEnd - 1) + 1;
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return the ratio of the lookups which were served from the cache, or 1 if there have
+     *         been no lookups yet
+     */
+    public double getHitRate() {
+        CacheStats stats = cache.stats();
+        return stats.hitRate();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
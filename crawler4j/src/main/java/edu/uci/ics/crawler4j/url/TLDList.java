@@ -6,9 +6,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.IDN;
 import java.net.URL;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Supplier;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -19,6 +19,11 @@ import com.google.common.base.Suppliers;
  * This class is a singleton which obtains a list of TLDs (from online or a local file) in order to
  * compare against those TLDs
  *
+ * The rules of the list are kept in a trie of their labels, from the last label to the first
+ * one, so the public suffix of a host is found in a single walk over the labels of the host,
+ * without allocating any strings. Wildcard (*.ck) and exception (!www.ck) rules are supported
+ * as described on https://publicsuffix.org/list/.
+ *
  * TODO: Nuke this singleton.
  */
 public class TLDList {
@@ -32,78 +37,262 @@ public class TLDList {
     private static boolean onlineUpdate = false;
     private static String url = TLD_NAMES_ONLINE_URL;
 
-    private final Supplier<Set<String>> memoizer;
+    private volatile Supplier<SuffixNode> memoizer;
 
     private static class SingletonHolder {
         private static final TLDList INSTANCE = new TLDList();
     }
 
+    /**
+     * A node of the suffix trie. The children are kept in an open addressing hash table
+     * of their labels, so they can be looked up by a region of the host.
+     */
+    private static final class SuffixNode {
+        private String[] labels = new String[2];
+        private SuffixNode[] children = new SuffixNode[2];
+        private int size = 0;
+
+        /** There is a rule for the suffix which ends at this node */
+        private boolean rule;
+
+        /** There is a wildcard rule for the labels below this node */
+        private boolean wildcard;
+
+        /** There is an exception rule for the suffix which ends at this node */
+        private boolean exception;
+
+        SuffixNode get(String host, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = (31 * hash) + host.charAt(i);
+            }
+            int mask = labels.length - 1;
+            for (int i = spread(hash) & mask; labels[i] != null; i = (i + 1) & mask) {
+                String label = labels[i];
+                if ((label.length() == (end - start)) &&
+                    host.regionMatches(start, label, 0, label.length())) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        SuffixNode getOrAdd(String label) {
+            SuffixNode child = get(label, 0, label.length());
+            if (child == null) {
+                if ((2 * (size + 1)) > labels.length) {
+                    String[] oldLabels = labels;
+                    SuffixNode[] oldChildren = children;
+                    labels = new String[2 * oldLabels.length];
+                    children = new SuffixNode[2 * oldLabels.length];
+                    for (int i = 0; i < oldLabels.length; i++) {
+                        if (oldLabels[i] != null) {
+                            insert(oldLabels[i], oldChildren[i]);
+                        }
+                    }
+                }
+                child = new SuffixNode();
+                insert(label, child);
+                size++;
+            }
+            return child;
+        }
+
+        private void insert(String label, SuffixNode child) {
+            int mask = labels.length - 1;
+            int i = spread(label.hashCode()) & mask;
+            while (labels[i] != null) {
+                i = (i + 1) & mask;
+            }
+            labels[i] = label;
+            children[i] = child;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
     public static TLDList getInstance() {
         return SingletonHolder.INSTANCE;
     }
 
     private TLDList() {
+        reload();
+    }
+
+    /**
+     * Makes the list be loaded again when it is used next.
+     */
+    private void reload() {
         memoizer = Suppliers.memoize(TLDList::tldSupplier)::get;
     }
 
-    private static int readStream(InputStream stream, Set<String> tldSet) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+    private static int readStream(InputStream stream, SuffixNode root) {
+        int n = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(stream, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
                 if (line.isEmpty() || line.startsWith("//")) {
                     continue;
                 }
-                tldSet.add(line);
+                // Rules end at the first whitespace
+                String rule = line.split("\\s", 2)[0].toLowerCase();
+                addRule(root, rule);
+                String asciiRule = toAscii(rule);
+                if ((asciiRule != null) && !asciiRule.equals(rule)) {
+                    addRule(root, asciiRule);
+                }
+                n++;
             }
         } catch (IOException e) {
             logger.warn("Error while reading TLD-list: {}", e.getMessage());
         }
-        return tldSet.size();
+        return n;
+    }
+
+    /**
+     * Internationalized rules are also added in their ASCII form, in which they appear in
+     * the hosts of urls.
+     */
+    private static String toAscii(String rule) {
+        try {
+            return IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED).toLowerCase();
+        } catch (IllegalArgumentException e) {
+            logger.debug("Can not convert TLD rule to ASCII: {}", rule);
+            return null;
+        }
+    }
+
+    private static void addRule(SuffixNode root, String rule) {
+        boolean exception = rule.startsWith("!");
+        if (exception) {
+            rule = rule.substring(1);
+        }
+        SuffixNode node = root;
+        int end = rule.length();
+        while (end > 0) {
+            int start = rule.lastIndexOf('.', end - 1) + 1;
+            String label = rule.substring(start, end);
+            if ((start == 0) && label.equals("*")) {
+                node.wildcard = true;
+                return;
+            }
+            node = node.getOrAdd(label);
+            end = start - 1;
+        }
+        if (exception) {
+            node.exception = true;
+        } else {
+            node.rule = true;
+        }
     }
 
     /**
      * If {@code online} is set to true, the list of TLD files will be downloaded and refreshed,
-     * otherwise the one cached in src/main/resources/tld-names.txt will be used.
+     * otherwise the one cached in src/main/resources/tld-names.txt will be used. If this
+     * changes where the list comes from, the list is loaded again when it is used next.
      */
     public static void setUseOnline(boolean online) {
         setUseOnline(online, TLD_NAMES_ONLINE_URL);
     }
 
     protected static void setUseOnline(boolean online, String downloadFromUrl) {
-        onlineUpdate = online;
-        url = downloadFromUrl;
+        if ((online != onlineUpdate) || !downloadFromUrl.equals(url)) {
+            onlineUpdate = online;
+            url = downloadFromUrl;
+            getInstance().reload();
+        }
     }
 
+    /**
+     * @return whether the given domain is listed as a public suffix, either by a rule of its
+     *         own or by a wildcard rule
+     */
     public boolean contains(String str) {
-        return memoizer.get().contains(str);
+        SuffixNode node = memoizer.get();
+        int end = str.length();
+        while (end > 0) {
+            int start = str.lastIndexOf('.', end - 1) + 1;
+            SuffixNode child = node.get(str, start, end);
+            if (start == 0) {
+                if (child != null) {
+                    return child.rule || (node.wildcard && !child.exception);
+                }
+                return node.wildcard;
+            }
+            if (child == null) {
+                return false;
+            }
+            node = child;
+            end = start - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the registrable domain of a host, i.e. its public suffix and the label before it.
+     * The host is given as a region of a string, such as the host of a url, so it does not
+     * have to be extracted first. Hosts whose top level domain is not listed are assumed to
+     * have their top level domain as public suffix.
+     *
+     * @param host string which contains the host
+     * @param start index of the first character of the host
+     * @param end index after the last character of the host
+     * @return the index at which the registrable domain of the host starts, or -1 if the host
+     *         is a public suffix itself
+     */
+    public int getRegistrableDomainStart(String host, int start, int end) {
+        SuffixNode node = memoizer.get();
+        int suffixStart = -1;
+        int labelEnd = end;
+        while ((node != null) && (labelEnd >= start)) {
+            int labelStart = Math.max(host.lastIndexOf('.', labelEnd - 1) + 1, start);
+            SuffixNode child = node.get(host, labelStart, labelEnd);
+            if ((child != null) && child.exception) {
+                // The suffix is the rule without its first label
+                suffixStart = labelEnd + 1;
+                break;
+            }
+            if (node.wildcard || ((child != null) && child.rule) || (suffixStart < 0)) {
+                suffixStart = labelStart;
+            }
+            node = child;
+            labelEnd = labelStart - 1;
+        }
+        if (suffixStart <= start) {
+            return -1;
+        }
+        return Math.max(host.lastIndexOf('.', suffixStart - 2) + 1, start);
     }
 
-    private static Set<String> tldSupplier() {
-        final Set<String> tldSet = new HashSet<>(10000);
+    private static SuffixNode tldSupplier() {
+        final SuffixNode root = new SuffixNode();
 
         if (onlineUpdate) {
             try (InputStream in = new URL(url).openStream()) {
                 logger.debug("Fetching the most updated TLD list online");
-                int n = readStream(in, tldSet);
+                int n = readStream(in, root);
                 logger.info("Obtained {} TLD from URL {}", n, url);
             } catch (Exception e) {
                 logger.error("Couldn't fetch the online list of TLDs from: {}",
                     url, e);
                 logger.error("Will try to load from file(s).");
-                loadFromFiles(tldSet);
+                loadFromFiles(root);
             }
         } else {
-            loadFromFiles(tldSet);
+            loadFromFiles(root);
         }
 
-        return tldSet;
+        return root;
     }
 
-    private static void loadFromFiles(Set<String> tldSet) {
+    private static void loadFromFiles(SuffixNode root) {
         try (InputStream tldFile = FileUtils.openInputStream(new File(TLD_NAMES_TXT_FILENAME))) {
             logger.debug("Fetching the list from a local file {}", TLD_NAMES_TXT_FILENAME);
-            int n = readStream(tldFile, tldSet);
+            int n = readStream(tldFile, root);
             logger.info("Obtained {} TLD from local file {}", n, TLD_NAMES_TXT_FILENAME);
         } catch (FileNotFoundException e) {
             logger.info("File not found: {}", TLD_NAMES_TXT_FILENAME);
@@ -113,7 +302,7 @@ public class TLDList {
 
         try (InputStream tldFile = TLDList.class.getClassLoader()
                 .getResourceAsStream(TLD_NAMES_TXT_FILENAME)) {
-            int n = readStream(tldFile, tldSet);
+            int n = readStream(tldFile, root);
             logger.info("Obtained {} TLD from packaged file {}", n, TLD_NAMES_TXT_FILENAME);
         } catch (IOException e) {
             logger.error("Couldn't read the TLD list from file");
@@ -25,9 +25,12 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * See http://en.wikipedia.org/wiki/URL_normalization for a reference Note: some
@@ -37,6 +40,18 @@ import java.util.Objects;
  */
 public class URLCanonicalizer {
 
+    /** Characters besides letters and digits which paths may contain without being encoded */
+    private static final String PATH_CHARACTERS = "-._~!$&'()*+,=:@";
+
+    /** Charsets in which ASCII characters are percent-encoded as their own code only */
+    private static final Set<String> ASCII_COMPATIBLE_CHARSETS = new HashSet<>(Arrays.asList(
+        "UTF-8", "ISO-8859-1", "US-ASCII", "windows-1252"));
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /** Queries with more parameters go through the general canonicalization */
+    private static final int MAX_FAST_PARAMETERS = 32;
+
     public static String getCanonicalURL(String url) {
         return getCanonicalURL(url, null);
     }
@@ -46,7 +61,334 @@ public class URLCanonicalizer {
     }
 
     public static String getCanonicalURL(String href, String context, Charset charset) {
+        String canonicalURL = getCanonicalURLFast(href, context, charset);
+        if (canonicalURL != null) {
+            return canonicalURL;
+        }
+        return getCanonicalURLSlow(href, context, charset);
+    }
+
+    /**
+     * Canonicalizes the common case of an http(s) url with a plain host, whose path has no
+     * dot segments or empty segments and whose query needs no decoding, in a single pass
+     * over the url. Relative hrefs are only resolved here if they don't need any path
+     * normalization either. The result is the same as that of the general canonicalization.
+     *
+     * @return the canonical url, or null if the url has to go through the general
+     *         canonicalization
+     */
+    static String getCanonicalURLFast(String href, String context, Charset charset) {
+        if (href == null) {
+            return null;
+        }
+        String url = href.trim();
+        if (getSchemeLength(url) < 0) {
+            if (context == null) {
+                return null;
+            }
+            url = resolveFast(context.trim(), url);
+            if (url == null) {
+                return null;
+            }
+        }
+        return canonicalizeFast(url, charset);
+    }
+
+    /**
+     * @return the length of the scheme and the "://" after it if the url is an absolute
+     *         http(s) url, -1 otherwise
+     */
+    private static int getSchemeLength(String url) {
+        if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            return 7;
+        }
+        if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            return 8;
+        }
+        return -1;
+    }
+
+    /**
+     * Resolves an href against an absolute http(s) base url, in the same way as
+     * {@link UrlResolver#resolveUrl(String, String)}, for hrefs which don't need their path
+     * normalized.
+     *
+     * @return the resolved url, or null if the href has to be resolved by UrlResolver
+     */
+    private static String resolveFast(String base, String href) {
+        int schemeLength = getSchemeLength(base);
+        if ((schemeLength < 0) || href.isEmpty() || href.startsWith("//")) {
+            return null;
+        }
+        int baseEnd = indexOf(base, '#', 0, base.length());
+        int basePathEnd = indexOf(base, '?', schemeLength, baseEnd);
+        int baseLocationEnd = indexOf(base, '/', schemeLength, baseEnd);
+        if ((baseLocationEnd > basePathEnd) ||
+            (indexOf(base, ';', schemeLength, basePathEnd) < basePathEnd)) {
+            return null;
+        }
+
+        int hrefPathEnd = href.length();
+        for (int i = 0; i < href.length(); i++) {
+            char c = href.charAt(i);
+            if ((c == '?') || (c == '#') || (c == ';')) {
+                hrefPathEnd = i;
+                break;
+            } else if (c == ':') {
+                // Might be the scheme of an absolute url
+                return null;
+            } else if (c == '/') {
+                hrefPathEnd = indexOf(href, ';', i, indexOf(href, '?', i, href.length()));
+                hrefPathEnd = indexOf(href, '#', i, hrefPathEnd);
+                break;
+            }
+        }
+
+        char first = href.charAt(0);
+        if (first == '#') {
+            return base.substring(0, baseEnd) + href;
+        }
+        if (first == '?') {
+            return base.substring(0, basePathEnd) + href;
+        }
+        if (first == ';') {
+            return null;
+        }
+
+        String path;
+        if (first == '/') {
+            path = href.substring(0, hrefPathEnd);
+        } else {
+            String baseDirectory = "/";
+            if (baseLocationEnd < basePathEnd) {
+                baseDirectory =
+                    base.substring(baseLocationEnd, base.lastIndexOf('/', basePathEnd - 1) + 1);
+            }
+            path = baseDirectory + href.substring(0, hrefPathEnd);
+        }
+        if (path.startsWith("/..") || path.contains("/./") || path.contains("/../") ||
+            path.endsWith("/.") || path.endsWith("/..")) {
+            return null;
+        }
+        return base.substring(0, baseLocationEnd) + path + href.substring(hrefPathEnd);
+    }
+
+    private static String canonicalizeFast(String url, Charset charset) {
+        int locationStart = getSchemeLength(url);
+        if (locationStart < 0) {
+            return null;
+        }
+        int end = indexOf(url, '#', locationStart, url.length());
+        int locationEnd = indexOf(url, '/', locationStart, end);
+        int queryStart = indexOf(url, '?', locationStart, end);
+        if (queryStart < locationEnd) {
+            if (locationEnd < end) {
+                // The location would end at a slash in the query
+                return null;
+            }
+            locationEnd = queryStart;
+        }
+
+        StringBuilder sb = new StringBuilder(url.length() + 16);
+        sb.append((locationStart == 7) ? "http://" : "https://");
+        int defaultPort = (locationStart == 7) ? 80 : 443;
+
+        // Host and port
+        int portStart = indexOf(url, ':', locationStart, locationEnd);
+        if (portStart == locationStart) {
+            return null;
+        }
+        for (int i = locationStart; i < portStart; i++) {
+            char c = url.charAt(i);
+            if (!isAsciiAlphanumeric(c) && (c != '.') && (c != '-') && (c != '_')) {
+                return null;
+            }
+        }
+        sb.append(url.substring(locationStart, portStart).toLowerCase());
+        if (portStart < locationEnd) {
+            int portLength = locationEnd - portStart - 1;
+            if ((portLength < 1) || (portLength > 5)) {
+                return null;
+            }
+            int port = 0;
+            for (int i = portStart + 1; i < locationEnd; i++) {
+                char c = url.charAt(i);
+                if ((c < '0') || (c > '9')) {
+                    return null;
+                }
+                port = (10 * port) + (c - '0');
+            }
+            if (port != defaultPort) {
+                sb.append(':').append(port);
+            }
+        }
+
+        // Path
+        if (locationEnd == queryStart) {
+            sb.append('/');
+        } else {
+            int segmentStart = locationEnd + 1;
+            sb.append('/');
+            for (int i = segmentStart; i <= queryStart; i++) {
+                char c = (i < queryStart) ? url.charAt(i) : '/';
+                if (c == '/') {
+                    int segmentLength = i - segmentStart;
+                    if (((segmentLength == 0) && (i < queryStart)) ||
+                        ((segmentLength == 1) && (url.charAt(segmentStart) == '.')) ||
+                        ((segmentLength == 2) && url.startsWith("..", segmentStart))) {
+                        return null;
+                    }
+                    if (i < queryStart) {
+                        sb.append('/');
+                    }
+                    segmentStart = i + 1;
+                } else if (c == '%') {
+                    if (((i + 2) >= queryStart) || !isHexDigit(url.charAt(i + 1)) ||
+                        !isHexDigit(url.charAt(i + 2))) {
+                        return null;
+                    }
+                    if ((url.charAt(i + 1) == '7') && (url.charAt(i + 2) == 'E')) {
+                        sb.append('~');
+                    } else {
+                        sb.append(url, i, i + 3);
+                    }
+                    i += 2;
+                } else if (isAsciiAlphanumeric(c) || (PATH_CHARACTERS.indexOf(c) >= 0)) {
+                    sb.append(c);
+                } else {
+                    return null;
+                }
+            }
+        }
+
+        // Query
+        if (queryStart < end) {
+            int canonicalQueryStart = sb.length() + 1;
+            sb.append('?');
+            if (!appendCanonicalQuery(sb, url, queryStart + 1, end, charset)) {
+                return null;
+            }
+            if (sb.length() == canonicalQueryStart) {
+                sb.setLength(canonicalQueryStart - 1);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the canonical form of a query to the url, in the same way as
+     * {@link #canonicalize(Map, Charset)}, if the query has no percent-encoded characters.
+     *
+     * @return false if the query has to go through the general canonicalization
+     */
+    private static boolean appendCanonicalQuery(StringBuilder sb, String url, int start,
+                                                int end, Charset charset) {
+        if ((charset == null) || !ASCII_COMPATIBLE_CHARSETS.contains(charset.name())) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if ((c <= ' ') || (c >= 0x7F) || (c == '%')) {
+                return false;
+            }
+        }
+
+        // Start and end of the names and values of the parameters, with later values of
+        // a repeated name replacing the earlier ones like in createParameterMap
+        int[] bounds = new int[4 * MAX_FAST_PARAMETERS];
+        int numParams = 0;
+        int pairStart = start;
+        while (pairStart < end) {
+            int pairEnd = indexOf(url, '&', pairStart, end);
+            if (pairEnd > pairStart) {
+                int separator = indexOf(url, '=', pairStart, pairEnd);
+                int valueStart = Math.min(separator + 1, pairEnd);
+                int param = 0;
+                while ((param < numParams) &&
+                       !regionEquals(url, bounds[4 * param], bounds[(4 * param) + 1],
+                                     pairStart, separator)) {
+                    param++;
+                }
+                if (param == numParams) {
+                    if (numParams == MAX_FAST_PARAMETERS) {
+                        return false;
+                    }
+                    numParams++;
+                    bounds[4 * param] = pairStart;
+                    bounds[(4 * param) + 1] = separator;
+                }
+                bounds[(4 * param) + 2] = valueStart;
+                bounds[(4 * param) + 3] = pairEnd;
+            }
+            pairStart = pairEnd + 1;
+        }
+
+        int paramsStart = sb.length();
+        for (int param = 0; param < numParams; param++) {
+            int nameStart = bounds[4 * param];
+            int nameEnd = bounds[(4 * param) + 1];
+            if (isSessionIdParameter(url, nameStart, nameEnd)) {
+                continue;
+            }
+            if (sb.length() > paramsStart) {
+                sb.append('&');
+            }
+            appendPercentEncoded(sb, url, nameStart, nameEnd);
+            int valueStart = bounds[(4 * param) + 2];
+            int valueEnd = bounds[(4 * param) + 3];
+            if (valueEnd > valueStart) {
+                sb.append('=');
+                appendPercentEncoded(sb, url, valueStart, valueEnd);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSessionIdParameter(String url, int start, int end) {
+        int length = end - start;
+        if ((length != 9) && (length != 10) && (length != 12)) {
+            return false;
+        }
+        String key = url.substring(start, end).toLowerCase();
+        return "jsessionid".equals(key) || "phpsessid".equals(key) || "aspsessionid".equals(key);
+    }
+
+    private static void appendPercentEncoded(StringBuilder sb, String url, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (isUnreservedCharacter(c)) {
+                sb.append(c);
+            } else {
+                sb.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+    }
+
+    private static int indexOf(String s, char c, int start, int end) {
+        int index = s.indexOf(c, start);
+        return ((index < 0) || (index > end)) ? end : index;
+    }
+
+    private static boolean regionEquals(String s, int start1, int end1, int start2, int end2) {
+        return ((end1 - start1) == (end2 - start2)) &&
+               s.regionMatches(start1, s, start2, end1 - start1);
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) ||
+               ((c >= '0') && (c <= '9'));
+    }
+
+    private static boolean isUnreservedCharacter(char c) {
+        return isAsciiAlphanumeric(c) || (c == '-') || (c == '.') || (c == '_') || (c == '~');
+    }
+
+    private static boolean isHexDigit(char c) {
+        return ((c >= '0') && (c <= '9')) || ((c >= 'a') && (c <= 'f')) ||
+               ((c >= 'A') && (c <= 'F'));
+    }
 
+    static String getCanonicalURLSlow(String href, String context, Charset charset) {
         try {
             URL canonicalURL =
                 new URL(UrlResolver.resolveUrl((context == null) ? "" : context, href));
@@ -40,9 +40,14 @@ public class WebURL implements Serializable {
     private int parentDocid;
     private String parentUrl;
     private short depth;
+
+    // Parsed from the url when they are first asked for
     private String domain;
     private String subDomain;
     private String path;
+
+    /** Length of the domain, if it was known when the url was set, or -1 */
+    private int domainLengthHint = -1;
     private String anchor;
     private byte priority;
     private String tag;
@@ -66,34 +71,90 @@ public class WebURL implements Serializable {
         return url;
     }
 
+    /**
+     * Sets the Url. Its domain, sub-domain and path are only parsed when they are first
+     * asked for, so Urls which are discarded right away don't pay for it.
+     */
     public void setURL(String url) {
+        setURL(url, -1);
+    }
+
+    /**
+     * Sets the Url of which the length of the domain is already known, for example because
+     * it was stored along with the Url. This saves splitting the host and looking up its
+     * top level domain. If the length does not fit the Url, the Url is parsed as usual.
+     *
+     * @param url Url string
+     * @param domainLength length of the domain of the Url, as returned by {@link #getDomain()}
+     */
+    public void setURL(String url, int domainLength) {
         this.url = url;
+        this.domainLengthHint = domainLength;
+        domain = null;
+        subDomain = null;
+        path = null;
+    }
+
+    private void parseDomain() {
+        int hostStartIdx = url.indexOf("//") + 2;
+        int hostEndIdx = getHostEndIndex(hostStartIdx);
+        int domainStartIdx = hostEndIdx - domainLengthHint;
+        if ((domainLengthHint >= 0) && isDomainStart(domainStartIdx, hostStartIdx, hostEndIdx)) {
+            domain = url.substring(domainStartIdx, hostEndIdx);
+            subDomain = parseSubDomain(hostStartIdx, domainStartIdx);
+            return;
+        }
+
+        // Trailing dots do not end an empty label
+        int labelsEndIdx = hostEndIdx;
+        while ((labelsEndIdx > hostStartIdx) && (url.charAt(labelsEndIdx - 1) == '.')) {
+            labelsEndIdx--;
+        }
+        int lastDotIdx = url.lastIndexOf('.', labelsEndIdx - 1);
+        int secondLastDotIdx =
+            (lastDotIdx > hostStartIdx) ? url.lastIndexOf('.', lastDotIdx - 1) : -1;
+        if (secondLastDotIdx < hostStartIdx) {
+            // At most two labels: the whole host is the domain
+            domain = url.substring(hostStartIdx, hostEndIdx);
+            subDomain = "";
+            return;
+        }
+
+        domainStartIdx =
+            TLDList.getInstance().getRegistrableDomainStart(url, hostStartIdx, labelsEndIdx);
+        if (domainStartIdx < 0) {
+            // The host is a public suffix itself
+            domainStartIdx = hostStartIdx;
+        }
+        domain = url.substring(domainStartIdx, labelsEndIdx);
+        subDomain = parseSubDomain(hostStartIdx, domainStartIdx);
+    }
 
-        int domainStartIdx = url.indexOf("//") + 2;
-        int domainEndIdx = url.indexOf('/', domainStartIdx);
-        domainEndIdx = (domainEndIdx > domainStartIdx) ? domainEndIdx : url.length();
-        domain = url.substring(domainStartIdx, domainEndIdx);
-        subDomain = "";
-        String[] parts = domain.split("\\.");
-        if (parts.length > 2) {
-            domain = parts[parts.length - 2] + "." + parts[parts.length - 1];
-            int limit = 2;
-            if (TLDList.getInstance().contains(domain)) {
-                domain = parts[parts.length - 3] + "." + domain;
-                limit = 3;
-            }
-            for (int i = 0; i < (parts.length - limit); i++) {
-                if (!subDomain.isEmpty()) {
-                    subDomain += ".";
-                }
-                subDomain += parts[i];
-            }
+    private String parseSubDomain(int hostStartIdx, int domainStartIdx) {
+        // Leading dots do not start an empty label
+        int subDomainStartIdx = hostStartIdx;
+        while ((subDomainStartIdx < domainStartIdx) && (url.charAt(subDomainStartIdx) == '.')) {
+            subDomainStartIdx++;
         }
-        path = url.substring(domainEndIdx);
-        int pathEndIdx = path.indexOf('?');
-        if (pathEndIdx >= 0) {
-            path = path.substring(0, pathEndIdx);
+        if (subDomainStartIdx >= (domainStartIdx - 1)) {
+            return "";
+        }
+        return url.substring(subDomainStartIdx, domainStartIdx - 1);
+    }
+
+    private boolean isDomainStart(int domainStartIdx, int hostStartIdx, int hostEndIdx) {
+        if ((domainStartIdx < hostStartIdx) || (domainStartIdx > hostEndIdx)) {
+            return false;
         }
+        if ((hostEndIdx > hostStartIdx) && (url.charAt(hostEndIdx - 1) == '.')) {
+            return false;
+        }
+        return (domainStartIdx == hostStartIdx) || (url.charAt(domainStartIdx - 1) == '.');
+    }
+
+    private int getHostEndIndex(int hostStartIdx) {
+        int hostEndIdx = url.indexOf('/', hostStartIdx);
+        return (hostEndIdx > hostStartIdx) ? hostEndIdx : url.length();
     }
 
     /**
@@ -141,18 +202,38 @@ public class WebURL implements Serializable {
      *      .com'
      */
     public String getDomain() {
+        if ((domain == null) && (url != null)) {
+            parseDomain();
+        }
         return domain;
     }
 
     public String getSubDomain() {
+        if ((subDomain == null) && (url != null)) {
+            parseDomain();
+        }
         return subDomain;
     }
 
+    /**
+     * @return
+     *      host of this Url, i.e. its sub-domain followed by its domain. For
+     *      'http://www.example.com/sample.htm', host will be 'www.example.com'
+     */
+    public String getHost() {
+        return getSubDomain().isEmpty() ? getDomain() : (getSubDomain() + "." + getDomain());
+    }
+
     /**
      * @return
      *      path of this Url. For 'http://www.example.com/sample.htm', domain will be 'sample.htm'
      */
     public String getPath() {
+        if ((path == null) && (url != null)) {
+            int hostEndIdx = getHostEndIndex(url.indexOf("//") + 2);
+            int pathEndIdx = url.indexOf('?', hostEndIdx);
+            path = url.substring(hostEndIdx, (pathEndIdx >= 0) ? pathEndIdx : url.length());
+        }
         return path;
     }
 
@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.util;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * SimHash fingerprints of contents, which differ in few bits for similar contents.
+ *
+ * The features of a content are its distinct words, that is runs of ASCII letters and digits
+ * and of non ASCII bytes, compared case insensitively. Words are taken from the raw bytes, so
+ * contents in any ASCII compatible charset are fingerprinted without being decoded. Tags,
+ * comments, scripts and style sheets of html contents are skipped, so that pages which share
+ * a template but not their text have distant fingerprints. Every word counts once, however
+ * often it occurs.
+ */
+public class SimHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Elements whose content is not text, but code up to their end tag */
+    private static final String[] RAW_TEXT_ELEMENTS = {"script", "style"};
+
+    private SimHash() {
+    }
+
+    public static long compute(byte[] data) {
+        return compute(data, 0, data.length);
+    }
+
+    public static long compute(byte[] data, int offset, int length) {
+        return compute(data, offset, length, 0).getAsLong();
+    }
+
+    /**
+     * Computes the fingerprint of a content unless it has too few words for its fingerprint to
+     * tell it apart from other contents: a content without words, for instance, has a
+     * fingerprint of 0 like all others.
+     *
+     * @param minWords the number of distinct words which a content must have to be fingerprinted
+     * @return the fingerprint of the content, or nothing if it has fewer than minWords words
+     */
+    public static OptionalLong compute(byte[] data, int offset, int length, int minWords) {
+        int end = offset + length;
+        long[] words = new long[256];
+        int count = 0;
+        long wordHash = FNV_OFFSET_BASIS;
+        boolean inWord = false;
+        int i = offset;
+        while (i < end) {
+            int b = data[i] & 0xFF;
+            if (isWordByte(b)) {
+                // Lower case ASCII letters, leaving digits and non ASCII bytes unchanged
+                int c = ((b >= 'A') && (b <= 'Z')) ? (b | 0x20) : b;
+                wordHash = (wordHash ^ c) * FNV_PRIME;
+                inWord = true;
+                i++;
+                continue;
+            }
+            if (inWord) {
+                if (count == words.length) {
+                    words = Arrays.copyOf(words, count * 2);
+                }
+                words[count++] = mix(wordHash);
+                wordHash = FNV_OFFSET_BASIS;
+                inWord = false;
+            }
+            i = (b == '<') ? skipMarkup(data, i, end) : (i + 1);
+        }
+        if (inWord) {
+            if (count == words.length) {
+                words = Arrays.copyOf(words, count + 1);
+            }
+            words[count++] = mix(wordHash);
+        }
+
+        Arrays.sort(words, 0, count);
+        int[] weights = new int[Long.SIZE];
+        int distinctWords = 0;
+        for (int j = 0; j < count; j++) {
+            if ((j == 0) || (words[j] != words[j - 1])) {
+                addFeature(weights, words[j]);
+                distinctWords++;
+            }
+        }
+        if (distinctWords < minWords) {
+            return OptionalLong.empty();
+        }
+
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return OptionalLong.of(simHash);
+    }
+
+    /**
+     * @return the number of bits in which two fingerprints differ
+     */
+    public static int distance(long simHash1, long simHash2) {
+        return Long.bitCount(simHash1 ^ simHash2);
+    }
+
+    /**
+     * @return the position after the tag, comment or declaration which starts at the given
+     *         '<', including the content of script and style elements, or the position after
+     *         the '<' if it is part of the text
+     */
+    private static int skipMarkup(byte[] data, int lt, int end) {
+        int pos = lt + 1;
+        if (regionMatches(data, pos, end, "!--")) {
+            int close = indexOf(data, pos + 3, end, "-->");
+            return (close < 0) ? end : (close + 3);
+        }
+        if ((pos == end) || !(isAsciiLetter(data[pos]) || (data[pos] == '/') ||
+                              (data[pos] == '!') || (data[pos] == '?'))) {
+            return pos;
+        }
+        int close = indexOf(data, pos, end, ">");
+        if (close < 0) {
+            return end;
+        }
+        for (String element : RAW_TEXT_ELEMENTS) {
+            int nameEnd = pos + element.length();
+            if (regionMatches(data, pos, end, element) &&
+                ((nameEnd == end) || !isWordByte(data[nameEnd] & 0xFF))) {
+                int endTag = indexOf(data, close + 1, end, "</" + element);
+                if (endTag < 0) {
+                    return end;
+                }
+                close = indexOf(data, endTag, end, ">");
+                return (close < 0) ? end : (close + 1);
+            }
+        }
+        return close + 1;
+    }
+
+    /**
+     * @return the position of the given lower case ASCII string in the data, ignoring case,
+     *         or -1 if it does not occur
+     */
+    private static int indexOf(byte[] data, int from, int end, String s) {
+        for (int i = from; i + s.length() <= end; i++) {
+            if (regionMatches(data, i, end, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether the data at the given position is the given lower case ASCII string,
+     *         ignoring case
+     */
+    private static boolean regionMatches(byte[] data, int pos, int end, String s) {
+        if (pos + s.length() > end) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            int b = data[pos + i];
+            if ((((b >= 'A') && (b <= 'Z')) ? (b | 0x20) : b) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(byte b) {
+        return ((b >= 'a') && (b <= 'z')) || ((b >= 'A') && (b <= 'Z'));
+    }
+
+    private static boolean isWordByte(int b) {
+        return ((b >= 'a') && (b <= 'z')) || ((b >= 'A') && (b <= 'Z')) ||
+               ((b >= '0') && (b <= '9')) || (b >= 0x80);
+    }
+
+    private static void addFeature(int[] weights, long featureHash) {
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            weights[bit] += (((featureHash >>> bit) & 1) != 0) ? 1 : -1;
+        }
+    }
+
+    /**
+     * Spreads the bits of a word hash, as the FNV hashes of short words vary little in their
+     * high bits.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,90 @@
+package edu.uci.ics.crawler4j.crawler
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration
+import com.github.tomakehurst.wiremock.junit.WireMockRule
+import edu.uci.ics.crawler4j.fetcher.PageFetcher
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtConfig
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*
+
+class ConditionalGetTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(new WireMockConfiguration().dynamicPort())
+
+    def "unchanged pages are not downloaded again"() {
+        given: "a page which is only sent if its ETag does not match"
+        stubFor(get(urlEqualTo("/some/page.html"))
+                .atPriority(2)
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withHeader("ETag", '"v1"')
+                .withBody("<html><body><p>Some text.</p></body></html>")))
+        stubFor(get(urlEqualTo("/some/page.html"))
+                .atPriority(1)
+                .withHeader("If-None-Match", equalTo('"v1"'))
+                .willReturn(aResponse()
+                .withStatus(304)
+                .withHeader("ETag", '"v1"')))
+        stubFor(get(urlPathMatching("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(404)))
+
+        when: "the page is crawled twice"
+        Map<String, Integer> firstCrawl = crawl()
+        Map<String, Integer> secondCrawl = crawl()
+
+        then: "it is only visited by the first crawl"
+        firstCrawl == [visited: 1, notModified: 0]
+        secondCrawl == [visited: 0, notModified: 1]
+        verify(1, getRequestedFor(urlEqualTo("/some/page.html"))
+                .withHeader("If-None-Match", equalTo('"v1"')))
+    }
+
+    private Map<String, Integer> crawl() {
+        CrawlConfig config = new CrawlConfig(
+                crawlStorageFolder: temp.getRoot().getAbsolutePath()
+                , conditionalGet: true
+                , politenessDelay: 100
+                , maxConnectionsPerHost: 1
+                , threadShutdownDelaySeconds: 1
+                , threadMonitoringDelaySeconds: 1
+                , cleanupDelaySeconds: 1
+        )
+
+        PageFetcher pageFetcher = new PageFetcher(config)
+        RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher)
+        CrawlController controller = new CrawlController(config, pageFetcher, robotstxtServer)
+        controller.addSeed "http://localhost:" + wireMockRule.port() + "/some/page.html"
+        controller.start(ConditionalGetWebCrawler.class, 1)
+        return (Map<String, Integer>) controller.getCrawlersLocalData().get(0)
+    }
+}
+
+class ConditionalGetWebCrawler extends WebCrawler {
+
+    private Map<String, Integer> counts = [visited: 0, notModified: 0]
+
+    @Override
+    void visit(Page page) {
+        counts.visited++
+    }
+
+    @Override
+    protected void onPageNotModified(Page page) {
+        counts.notModified++
+    }
+
+    @Override
+    Object getMyLocalData() {
+        return counts
+    }
+}
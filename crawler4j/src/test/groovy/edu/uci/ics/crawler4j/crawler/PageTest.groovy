@@ -6,6 +6,7 @@ import org.apache.http.HttpEntity
 import org.apache.http.entity.BasicHttpEntity
 import org.apache.http.message.BasicHeader
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class PageTest extends Specification {
 
@@ -25,4 +26,62 @@ class PageTest extends Specification {
         then: "charset should fallback to UTF-8"
         "UTF-8".equals(page.getContentCharset())
     }
+
+    private static HttpEntity entity(String content, String contentType) {
+        BasicHttpEntity entity = new BasicHttpEntity()
+        entity.setContent(IOUtils.toInputStream(content, "UTF-8"))
+        entity.setContentLength(content.size())
+        entity.setContentType(new BasicHeader("Content-type", contentType))
+        return entity
+    }
+
+    @Unroll
+    def "streamed html content with max size #maxBytes is read as #expected"() {
+        given:
+        Page page = new Page(new WebURL())
+        page.loadStreaming(entity("<html>content</html>", "text/html"), maxBytes, true)
+
+        expect:
+        page.getContentData() == null
+
+        when: "the parser consumes the stream"
+        String read = page.getContentStream().withCloseable { IOUtils.toString(it, "UTF-8") }
+
+        then: "the content read is kept as the content data"
+        read == expected
+        new String(page.getContentData(), "UTF-8") == expected
+        page.getContentStream() == null
+        page.isTruncated() == truncated
+
+        where:
+        maxBytes | expected               | truncated
+        1024     | "<html>content</html>" | false
+        20       | "<html>content</html>" | false
+        6        | "<html>"               | true
+    }
+
+    def "streamed html content is not kept unless asked to"() {
+        given:
+        Page page = new Page(new WebURL())
+        page.loadStreaming(entity("<html>content</html>", "text/html"), 1024, false)
+
+        when:
+        String read = page.getContentStream().withCloseable { IOUtils.toString(it, "UTF-8") }
+
+        then:
+        read == "<html>content</html>"
+        page.getContentData() == null
+    }
+
+    def "plain text content is not streamed"() {
+        given:
+        Page page = new Page(new WebURL())
+
+        when:
+        page.loadStreaming(entity("some text", "text/plain"), 1024, false)
+
+        then:
+        page.getContentStream() == null
+        new String(page.getContentData(), "UTF-8") == "some text"
+    }
 }
@@ -0,0 +1,98 @@
+package edu.uci.ics.crawler4j.fetcher
+
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.GZIPOutputStream
+
+import org.apache.http.entity.ByteArrayEntity
+import org.apache.http.util.EntityUtils
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ContentDecodingEntityTest extends Specification {
+
+    static final byte[] HTML = ("<html><body>" + (1..5000).collect { "word$it" }.join(" ") +
+                                "</body></html>").getBytes("UTF-8")
+
+    private static byte[] compress(byte[] content, Class<? extends OutputStream> streamClass) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+        streamClass.newInstance(bytes).withStream { it.write(content) }
+        return bytes.toByteArray()
+    }
+
+    private static ContentDecodingEntity entity(byte[] content, String encoding, int maxRatio) {
+        ByteArrayEntity entity = new ByteArrayEntity(content)
+        if (encoding != null) {
+            entity.setContentEncoding(encoding)
+        }
+        return new ContentDecodingEntity(entity, maxRatio)
+    }
+
+    @Unroll
+    def "#encoding content is decoded and counted"() {
+        given:
+        byte[] encoded = (streamClass != null) ? compress(HTML, streamClass) : HTML
+        ContentDecodingEntity entity = entity(encoded, encoding, 100)
+
+        expect:
+        EntityUtils.toByteArray(entity) == HTML
+        entity.getWireBytes() == encoded.length
+        entity.getDecodedBytes() == HTML.length
+        entity.getContentEncoding() == null
+
+        where:
+        encoding   | streamClass
+        "gzip"     | GZIPOutputStream
+        "x-gzip"   | GZIPOutputStream
+        "deflate"  | DeflaterOutputStream
+        "identity" | null
+        null       | null
+    }
+
+    def "decompression bombs are rejected"() {
+        given:
+        byte[] bomb = compress(new byte[10 * 1024 * 1024], GZIPOutputStream)
+
+        when:
+        EntityUtils.toByteArray(entity(bomb, "gzip", 100))
+
+        then:
+        thrown(IOException)
+
+        when:
+        byte[] decoded = EntityUtils.toByteArray(entity(bomb, "gzip", 0))
+
+        then: "unless the ratio is not limited"
+        decoded.length == 10 * 1024 * 1024
+    }
+
+    @Unroll
+    def "content in the unsupported encoding #encoding is passed on as it is"() {
+        given:
+        ContentDecodingEntity entity = entity(HTML, encoding, 100)
+
+        expect:
+        EntityUtils.toByteArray(entity) == HTML
+        entity.getContentLength() == HTML.length
+        entity.getContentEncoding().getValue() == encoding
+
+        where:
+        encoding << ["compress", "UTF-8", "none", "gzip, binary"]
+    }
+
+    def "entities set on a fetch result are decoded once"() {
+        given:
+        byte[] encoded = compress(HTML, GZIPOutputStream)
+        ByteArrayEntity entity = new ByteArrayEntity(encoded)
+        entity.setContentEncoding("gzip")
+        PageFetchResult fetchResult = new PageFetchResult()
+
+        when:
+        fetchResult.setEntity(entity)
+        fetchResult.setEntity(fetchResult.getEntity())
+
+        then:
+        fetchResult.getEntity() instanceof ContentDecodingEntity
+        EntityUtils.toByteArray(fetchResult.getEntity()) == HTML
+        fetchResult.getWireBytes() == encoded.length
+    }
+}
@@ -0,0 +1,30 @@
+package edu.uci.ics.crawler4j.fetcher
+
+import spock.lang.Specification
+
+class PolitenessTrackerTest extends Specification {
+
+    def "only requests to the same host wait for the politeness delay"() {
+        given:
+        PolitenessTracker tracker = new PolitenessTracker()
+
+        when:
+        long firstWait = tracker.acquire("www.example.com", 300)
+        long otherHostWait = tracker.acquire("www.example.org", 300)
+        long start = System.currentTimeMillis()
+        long sameHostWait = tracker.acquire("www.example.com", 300)
+        long elapsed = System.currentTimeMillis() - start
+
+        then:
+        firstWait == 0
+        otherHostWait == 0
+        sameHostWait > 0
+        elapsed >= sameHostWait
+
+        and: "the time spent waiting is reported"
+        tracker.getRequests() == 3
+        tracker.getDelayedRequests() == 1
+        tracker.getTotalWaitTime() == sameHostWait
+        tracker.getNumberOfHosts() == 2
+    }
+}
@@ -0,0 +1,54 @@
+package edu.uci.ics.crawler4j.fetcher
+
+import org.apache.http.Header
+import org.apache.http.message.BasicHeader
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class ValidatorStoreTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    def "validators are kept between crawls"() {
+        given:
+        File folder = new File(temp.getRoot(), "validators")
+        ValidatorStore store = new ValidatorStore(folder)
+        store.put("http://www.example.com/", [
+            new BasicHeader("etag", '"v1"'),
+            new BasicHeader("Last-Modified", "Tue, 15 Nov 1994 12:45:26 GMT")] as Header[])
+        store.put("http://www.example.com/page.html", null, "Wed, 16 Nov 1994 12:45:26 GMT")
+        store.close()
+
+        when:
+        store = new ValidatorStore(folder)
+        ValidatorStore.Validators validators = store.get("http://www.example.com/")
+
+        then:
+        validators.getETag() == '"v1"'
+        validators.getLastModified() == "Tue, 15 Nov 1994 12:45:26 GMT"
+        store.get("http://www.example.com/page.html").getETag() == null
+        store.get("http://www.example.com/other.html") == null
+
+        cleanup:
+        store.close()
+    }
+
+    def "validators are removed when a page is served without them"() {
+        given:
+        ValidatorStore store = new ValidatorStore(temp.newFolder("validators"))
+        store.put("http://www.example.com/", '"v1"', null)
+
+        when:
+        store.put("http://www.example.com/",
+                  [new BasicHeader("Content-Type", "text/html")] as Header[])
+
+        then:
+        store.get("http://www.example.com/") == null
+        store.getCount() == 0
+
+        cleanup:
+        store.close()
+    }
+}
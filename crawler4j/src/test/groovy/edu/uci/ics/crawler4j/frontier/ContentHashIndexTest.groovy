@@ -0,0 +1,133 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import com.sleepycat.je.EnvironmentConfig
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ContentHashIndexTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    static final String HTML = "text/html; charset=UTF-8"
+
+    static final String PAGE = "<html><body>" +
+        (1..300).collect { "word$it" }.join(" ") + "</body></html>"
+
+    @Unroll
+    def "pages with the same content are duplicates (near duplicate distance: #distance)"() {
+        given:
+        Environment env = openEnvironment()
+        ContentHashIndex index = new ContentHashIndex(env,
+            new CrawlConfig(deduplicateContent: true, nearDuplicateDistance: distance))
+
+        expect:
+        index.findDuplicate(1, PAGE.getBytes("UTF-8"), HTML) == -1
+        index.findDuplicate(2, PAGE.getBytes("UTF-8"), HTML) == 1
+        index.findDuplicate(3, "<html><body>Another page</body></html>".getBytes("UTF-8"),
+            HTML) == -1
+        // A page which is fetched again is not a duplicate of itself
+        index.findDuplicate(1, PAGE.getBytes("UTF-8"), HTML) == -1
+
+        cleanup:
+        index.close()
+        env.close()
+
+        where:
+        distance << [-1, 3]
+    }
+
+    @Unroll
+    def "pages with nearly the same content are duplicates (near duplicate distance: #distance)"() {
+        given:
+        Environment env = openEnvironment()
+        ContentHashIndex index = new ContentHashIndex(env,
+            new CrawlConfig(deduplicateContent: true, nearDuplicateDistance: distance))
+        byte[] updated = PAGE.replace("<body>", "<body>Updated").getBytes("UTF-8")
+
+        expect:
+        index.findDuplicate(1, PAGE.getBytes("UTF-8"), HTML) == -1
+        index.findDuplicate(2, updated, HTML) == duplicateOfDocId
+
+        cleanup:
+        index.close()
+        env.close()
+
+        where:
+        distance | duplicateOfDocId
+        -1       | -1
+        3        | 1
+    }
+
+    def "pages with different texts in the same template are not near duplicates"() {
+        given:
+        Environment env = openEnvironment()
+        ContentHashIndex index = new ContentHashIndex(env,
+            new CrawlConfig(deduplicateContent: true, nearDuplicateDistance: 3))
+        String template = "<html><body>" +
+            "<ul class=\"nav\"><li class=\"nav-item\"><a href=\"/\">Home</a></li></ul>" +
+            ("<div class=\"wrapper row\"><span class=\"ad\"></span></div>" * 200) +
+            "<div class=\"article\">%s</div></body></html>"
+
+        expect:
+        index.findDuplicate(1, String.format(template,
+            (1..200).collect { "word$it" }.join(" ")).getBytes("UTF-8"), HTML) == -1
+        index.findDuplicate(2, String.format(template,
+            (1..200).collect { "term$it" }.join(" ")).getBytes("UTF-8"), HTML) == -1
+
+        cleanup:
+        index.close()
+        env.close()
+    }
+
+    def "pages with too few words are not near duplicates"() {
+        given:
+        Environment env = openEnvironment()
+        ContentHashIndex index = new ContentHashIndex(env,
+            new CrawlConfig(deduplicateContent: true, nearDuplicateDistance: 3))
+
+        expect:
+        index.findDuplicate(1, "<html><body><img src=\"a.png\"></body></html>".getBytes("UTF-8"),
+            HTML) == -1
+        index.findDuplicate(2, "<html><body><img src=\"b.png\"></body></html>".getBytes("UTF-8"),
+            HTML) == -1
+        index.findDuplicate(3, "<html><body>A short page</body></html>".getBytes("UTF-8"),
+            HTML) == -1
+        index.findDuplicate(4, "<html><body>A short page!</body></html>".getBytes("UTF-8"),
+            HTML) == -1
+
+        cleanup:
+        index.close()
+        env.close()
+    }
+
+    def "pages which are not text are not near duplicates"() {
+        given:
+        Environment env = openEnvironment()
+        ContentHashIndex index = new ContentHashIndex(env,
+            new CrawlConfig(deduplicateContent: true, nearDuplicateDistance: 3))
+        byte[] image = PAGE.getBytes("UTF-8")
+        byte[] updated = PAGE.replace("<body>", "<body>Updated").getBytes("UTF-8")
+
+        expect:
+        index.findDuplicate(1, image, "image/png") == -1
+        index.findDuplicate(2, updated, "image/png") == -1
+        index.findDuplicate(3, updated, null) == -1
+        // Pages with the same content are still duplicates
+        index.findDuplicate(4, image, "image/png") == 1
+
+        cleanup:
+        index.close()
+        env.close()
+    }
+
+    private Environment openEnvironment() {
+        EnvironmentConfig envConfig = new EnvironmentConfig()
+        envConfig.setAllowCreate(true)
+        return new Environment(temp.newFolder(), envConfig)
+    }
+}
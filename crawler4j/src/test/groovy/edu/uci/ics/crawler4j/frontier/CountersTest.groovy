@@ -0,0 +1,70 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import com.sleepycat.je.EnvironmentConfig
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class CountersTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    def "counters are restored when a crawl is resumed"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        config.setResumableCrawling(true)
+
+        when: "counters are incremented in a first crawl"
+        Environment env = openEnvironment()
+        Counters counters = new Counters(env, config)
+        100.times { counters.increment(Counters.ReservedCounterNames.PROCESSED_PAGES) }
+        counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES, 5000000000L)
+        counters.close()
+        env.close()
+
+        and: "the crawl is resumed"
+        env = openEnvironment()
+        counters = new Counters(env, config)
+
+        then:
+        counters.getValue(Counters.ReservedCounterNames.PROCESSED_PAGES) == 100
+        counters.getValue(Counters.ReservedCounterNames.SCHEDULED_PAGES) == 5000000000L
+        counters.getValue("Unknown") == 0
+
+        cleanup:
+        counters.close()
+        env.close()
+    }
+
+    def "counters are written to the database by a checkpoint"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        config.setResumableCrawling(true)
+        Environment env = openEnvironment()
+        Counters counters = new Counters(env, config)
+
+        when:
+        counters.increment(Counters.ReservedCounterNames.PROCESSED_PAGES, 3)
+        counters.checkpoint()
+        Counters other = new Counters(env, config)
+
+        then:
+        other.getValue(Counters.ReservedCounterNames.PROCESSED_PAGES) == 3
+
+        cleanup:
+        other.close()
+        counters.close()
+        env.close()
+    }
+
+    private Environment openEnvironment() {
+        EnvironmentConfig envConfig = new EnvironmentConfig()
+        envConfig.setAllowCreate(true)
+        envConfig.setTransactional(true)
+        envConfig.setLocking(true)
+        return new Environment(temp.getRoot(), envConfig)
+    }
+}
@@ -0,0 +1,212 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Database
+import com.sleepycat.je.DatabaseConfig
+import com.sleepycat.je.DatabaseEntry
+import com.sleepycat.je.Environment
+import com.sleepycat.je.EnvironmentConfig
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DocIDServerTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    @Unroll
+    def "seen urls are found after resuming a crawl (fingerprint keys: #fingerprintKeys)"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        config.setResumableCrawling(true)
+        config.setSeenUrlFilterSize(1000)
+        config.setDocIdFingerprintKeys(fingerprintKeys)
+
+        when: "urls are assigned docids in a first crawl"
+        Environment env = openEnvironment()
+        DocIDServer docIdServer = new DocIDServer(env, config)
+        int first = docIdServer.getNewDocID("http://www.example.com/")
+        int second = docIdServer.getNewDocID("http://www.example.com/page.html")
+        docIdServer.close()
+        env.close()
+
+        and: "the crawl is resumed"
+        env = openEnvironment()
+        docIdServer = new DocIDServer(env, config)
+
+        then:
+        docIdServer.getDocId("http://www.example.com/") == first
+        docIdServer.getDocId("http://www.example.com/page.html") == second
+        docIdServer.getDocId("http://www.example.com/new.html") == -1
+        docIdServer.getNewDocID("http://www.example.com/new.html") > second
+
+        cleanup:
+        docIdServer.close()
+        env.close()
+
+        where:
+        fingerprintKeys << [false, true]
+    }
+
+    def "only urls which have not been seen get new docids in a batch"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        Environment env = openEnvironment()
+        DocIDServer docIdServer = new DocIDServer(env, config)
+        int seen = docIdServer.getOrAssignDocId("http://www.example.com/")
+
+        when:
+        List<WebURL> newUrls = docIdServer.assignNewDocIds([
+            newUrl("http://www.example.com/"),
+            newUrl("http://www.example.com/a.html"),
+            newUrl("http://www.example.com/b.html"),
+            newUrl("http://www.example.com/a.html")])
+
+        then:
+        newUrls*.URL == ["http://www.example.com/a.html", "http://www.example.com/b.html"]
+        newUrls*.docid == [seen + 1, seen + 2]
+        docIdServer.getOrAssignDocId("http://www.example.com/b.html") == seen + 2
+
+        cleanup:
+        docIdServer.close()
+        env.close()
+    }
+
+    def "docids are unique across shards and larger than the docids which were added"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        config.setDocIdShards(3)
+        Environment env = openEnvironment()
+        DocIDServer docIdServer = new DocIDServer(env, config)
+
+        when:
+        List<Integer> docids = (1..30).collect {
+            docIdServer.getOrAssignDocId("http://www.example.com/" + it + ".html")
+        }
+
+        then:
+        docids.unique(false).size() == 30
+        docids.every { it > 0 }
+        docids.max() < 100
+
+        when: "a docid is added beyond the docids of all the shards"
+        docIdServer.addUrlAndDocId("http://www.example.com/added.html", 100)
+        List<Integer> later = (31..60).collect {
+            docIdServer.getOrAssignDocId("http://www.example.com/" + it + ".html")
+        }
+
+        then:
+        later.every { it > 100 }
+        later.unique(false).size() == 30
+        docIdServer.getDocCount() == 61
+
+        cleanup:
+        docIdServer.close()
+        env.close()
+    }
+
+    def "a resumed crawl keeps the shards of the previous crawl"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        config.setResumableCrawling(true)
+        config.setDocIdShards(4)
+
+        when: "urls are assigned docids in a first crawl with 4 shards"
+        Environment env = openEnvironment()
+        DocIDServer docIdServer = new DocIDServer(env, config)
+        List<Integer> docids = (1..20).collect {
+            docIdServer.getOrAssignDocId("http://www.example.com/" + it + ".html")
+        }
+        docIdServer.close()
+        env.close()
+
+        and: "the crawl is resumed with 2 shards"
+        config.setDocIdShards(2)
+        env = openEnvironment()
+        docIdServer = new DocIDServer(env, config)
+
+        then:
+        docIdServer.getShardCount() == 4
+        (1..20).collect { docIdServer.getDocId("http://www.example.com/" + it + ".html") } ==
+            docids
+        docIdServer.getOrAssignDocId("http://www.example.com/new.html") > docids.max()
+
+        cleanup:
+        docIdServer.close()
+        env.close()
+    }
+
+    @Unroll
+    def "a resumed crawl keeps the keys of the previous crawl (fingerprint keys: #keys)"() {
+        given:
+        CrawlConfig config = new CrawlConfig()
+        config.setResumableCrawling(true)
+        config.setSeenUrlFilterSize(1000)
+        config.setDocIdFingerprintKeys(keys)
+
+        when: "urls are assigned docids in a first crawl"
+        Environment env = openEnvironment()
+        DocIDServer docIdServer = new DocIDServer(env, config)
+        int docid = docIdServer.getNewDocID("http://www.example.com/")
+        docIdServer.close()
+        env.close()
+
+        and: "the crawl is resumed with the other kind of keys"
+        config.setDocIdFingerprintKeys(!keys)
+        env = openEnvironment()
+        docIdServer = new DocIDServer(env, config)
+
+        then:
+        docIdServer.isFingerprintKeys() == keys
+        docIdServer.getDocId("http://www.example.com/") == docid
+        docIdServer.getOrAssignDocId("http://www.example.com/") == docid
+
+        cleanup:
+        docIdServer.close()
+        env.close()
+
+        where:
+        keys << [false, true]
+    }
+
+    def "urls which are stored without a docid get no docid"() {
+        given: "a url which is stored without a docid"
+        Environment env = openEnvironment()
+        DatabaseConfig dbConfig = new DatabaseConfig(allowCreate: true, deferredWrite: true)
+        Database db = env.openDatabase(null, "DocIDs", dbConfig)
+        db.put(null, new DatabaseEntry("http://www.example.com/".getBytes("UTF-8")),
+               new DatabaseEntry(new byte[0]))
+        db.close()
+
+        CrawlConfig config = new CrawlConfig()
+        config.setDocIdShards(1)
+        DocIDServer docIdServer = new DocIDServer(env, config)
+
+        expect:
+        docIdServer.getOrAssignDocId("http://www.example.com/") == -1
+        docIdServer.assignNewDocIds([newUrl("http://www.example.com/"),
+                                     newUrl("http://www.example.com/a.html")])*.URL ==
+            ["http://www.example.com/a.html"]
+
+        cleanup:
+        docIdServer.close()
+        env.close()
+    }
+
+    private static WebURL newUrl(String url) {
+        WebURL webURL = new WebURL()
+        webURL.setURL(url)
+        return webURL
+    }
+
+    private Environment openEnvironment() {
+        EnvironmentConfig envConfig = new EnvironmentConfig()
+        envConfig.setAllowCreate(true)
+        envConfig.setTransactional(true)
+        envConfig.setLocking(true)
+        return new Environment(temp.getRoot(), envConfig)
+    }
+}
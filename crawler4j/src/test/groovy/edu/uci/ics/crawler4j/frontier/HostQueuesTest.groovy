@@ -0,0 +1,49 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import com.sleepycat.je.EnvironmentConfig
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class HostQueuesTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    def "urls are handed out in rotation over hosts which are ready"() {
+        given: "a host partitioned queue with a long politeness delay"
+        EnvironmentConfig envConfig = new EnvironmentConfig()
+        envConfig.setAllowCreate(true)
+        Environment env = new Environment(temp.getRoot(), envConfig)
+        HostQueues queues = new HostQueues(env, "test", false, 60000)
+
+        and: "three urls of one host and one of another host"
+        queues.put(newUrl("http://www.example.com/1.html", 1))
+        queues.put(newUrl("http://www.example.com/2.html", 2))
+        queues.put(newUrl("http://www.example.com/3.html", 3))
+        queues.put(newUrl("http://other.example.org/1.html", 4))
+
+        when:
+        List<WebURL> first = queues.take(10)
+        List<WebURL> second = queues.take(10)
+
+        then: "only one url per host is handed out until the politeness delay elapsed"
+        first*.URL == ["http://www.example.com/1.html", "http://other.example.org/1.html"]
+        second.isEmpty()
+        queues.getLength() == 2
+        queues.getNextFetchDelay() > 0
+
+        cleanup:
+        queues?.close()
+        env?.close()
+    }
+
+    private static WebURL newUrl(String url, int docid) {
+        WebURL webURL = new WebURL()
+        webURL.setURL(url)
+        webURL.setDocid(docid)
+        return webURL
+    }
+}
@@ -0,0 +1,48 @@
+package edu.uci.ics.crawler4j.frontier
+
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+class InMemoryWorkQueuesTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    def "urls spilled to disk are taken in the same order as from the database"() {
+        given: "a queue which keeps at most 10 urls in memory"
+        InMemoryWorkQueues queues = new InMemoryWorkQueues(temp.newFolder("spill"), 10)
+
+        when: "urls are put in random order"
+        List<Integer> docids = (1..200).toList()
+        Collections.shuffle(docids, new Random(42))
+        docids.each { queues.put(newUrl(it, (byte) (it % 2))) }
+
+        then:
+        queues.getLength() == 200
+        queues.getNumberOfSpilledUrls() > 0
+
+        when:
+        List<WebURL> taken = []
+        List<WebURL> batch
+        while (!(batch = queues.take(17)).isEmpty()) {
+            taken.addAll(batch)
+        }
+
+        then: "urls come out by priority, then by docid"
+        taken*.docid == (2..200).step(2) + (1..199).step(2)
+        queues.getLength() == 0
+
+        cleanup:
+        queues.close()
+    }
+
+    private static WebURL newUrl(int docid, byte priority) {
+        WebURL webURL = new WebURL()
+        webURL.setURL("http://www.example.com/" + docid + ".html")
+        webURL.setDocid(docid)
+        webURL.setPriority(priority)
+        return webURL
+    }
+}
@@ -0,0 +1,75 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.bind.tuple.TupleInput
+import com.sleepycat.bind.tuple.TupleOutput
+import edu.uci.ics.crawler4j.url.WebURL
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class WebURLTupleBindingTest extends Specification {
+
+    WebURLTupleBinding binding = new WebURLTupleBinding()
+
+    @Unroll
+    def "url #url is read back as it was written"() {
+        given:
+        WebURL webURL = new WebURL()
+        webURL.setURL(url)
+        webURL.setDocid(123456)
+        webURL.setParentDocid(42)
+        webURL.setParentUrl(parentUrl)
+        webURL.setDepth((short) 3)
+        webURL.setPriority((byte) -2)
+        webURL.setAnchor(anchor)
+
+        when:
+        TupleOutput output = new TupleOutput()
+        binding.objectToEntry(webURL, output)
+        WebURL read = binding.entryToObject(new TupleInput(output.toByteArray()))
+
+        then:
+        read.URL == url
+        read.domain == webURL.domain
+        read.subDomain == webURL.subDomain
+        read.path == webURL.path
+        read.docid == 123456
+        read.parentDocid == 42
+        read.parentUrl == parentUrl
+        read.depth == 3
+        read.priority == -2
+        read.anchor == anchor
+
+        where:
+        url                                        | parentUrl                  | anchor
+        "http://www.example.com/a/b.html?q=1"      | "http://www.example.com/"  | "B"
+        "http://news.bbc.co.uk/sport"              | null                       | "Sport"
+        "https://example.com"                      | "https://example.com/home" | null
+        "http://a.b.c.example.org:8080/index.html" | null                       | null
+    }
+
+    def "entries written before the format was versioned can still be read"() {
+        given:
+        TupleOutput output = new TupleOutput()
+        output.writeString("http://www.example.com/page.html")
+        output.writeInt(7)
+        output.writeInt(3)
+        output.writeString("http://www.example.com/")
+        output.writeShort(2)
+        output.writeByte(0)
+        output.writeString("Page")
+
+        when:
+        WebURL read = binding.entryToObject(new TupleInput(output.toByteArray()))
+
+        then:
+        read.URL == "http://www.example.com/page.html"
+        read.domain == "example.com"
+        read.subDomain == "www"
+        read.docid == 7
+        read.parentDocid == 3
+        read.parentUrl == "http://www.example.com/"
+        read.depth == 2
+        read.priority == 0
+        read.anchor == "Page"
+    }
+}
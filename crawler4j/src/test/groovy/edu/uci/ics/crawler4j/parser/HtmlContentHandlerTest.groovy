@@ -0,0 +1,91 @@
+package edu.uci.ics.crawler4j.parser
+
+import org.xml.sax.helpers.AttributesImpl
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class HtmlContentHandlerTest extends Specification {
+
+    private static AttributesImpl attributes(Map<String, String> values) {
+        AttributesImpl attributes = new AttributesImpl()
+        values.each { name, value -> attributes.addAttribute("", name, name, "CDATA", value) }
+        return attributes
+    }
+
+    private static void link(HtmlContentHandler handler, List<String> chunks) {
+        handler.startElement("", "a", "a", attributes([href: "x.html", rel: "next", id: "1"]))
+        chunks.each { handler.characters(it.toCharArray(), 0, it.length()) }
+        handler.endElement("", "a", "a")
+    }
+
+    @Unroll
+    def "anchor text #chunks is #anchor"() {
+        given:
+        HtmlContentHandler handler = new HtmlContentHandler()
+        handler.startElement("", "body", "body", attributes([:]))
+
+        when:
+        link(handler, chunks)
+
+        then:
+        handler.getOutgoingUrls()[0].getAnchor() == anchor
+
+        where:
+        chunks                                | anchor
+        ["Some", " link"]                     | "Some link"
+        ["\n\t  Some\n", "\tlink \r\n "]      | "Some  link"
+        [" \n "]                              | null
+        ["a" * 60, " \n", "b" * 60]           | "a" * 60 + "  " + "b" * 38 + "..."
+        [" " * 10, "a" * 100, " " * 10]       | "a" * 100
+    }
+
+    def "body text is capped"() {
+        given:
+        HtmlContentHandler handler = new HtmlContentHandler(10, null)
+        handler.startElement("", "body", "body", attributes([:]))
+
+        when:
+        ["Some", "text in the body"].each { handler.characters(it.toCharArray(), 0, it.length()) }
+
+        then:
+        handler.getBodyText() == "Some text "
+    }
+
+    def "only the requested link attributes are kept"() {
+        given:
+        HtmlContentHandler allAttributes = new HtmlContentHandler()
+        HtmlContentHandler relOnly = new HtmlContentHandler(-1, ["rel"] as Set)
+
+        when:
+        link(allAttributes, [])
+        link(relOnly, [])
+
+        then:
+        allAttributes.getOutgoingUrls()[0].getAttributes() == [href: "x.html", rel: "next", id: "1"]
+        relOnly.getOutgoingUrls()[0].getAttributes() == [rel: "next"]
+    }
+
+    @Unroll
+    def "reset keeps the results of the previous page with text #firstText"() {
+        given:
+        HtmlContentHandler handler = new HtmlContentHandler()
+        handler.startElement("", "body", "body", attributes([:]))
+        if (firstText) {
+            link(handler, [firstText])
+        }
+        CharSequence firstBodyText = handler.getBodyTextBuffer()
+
+        when:
+        handler.reset()
+        handler.startElement("", "body", "body", attributes([:]))
+        link(handler, ["second"])
+
+        then:
+        firstBodyText.toString() == firstText
+        handler.getBodyText() == "second"
+        handler.getOutgoingUrls()*.getAnchor() == ["second"]
+
+        where:
+        firstText << ["first", ""]
+    }
+}
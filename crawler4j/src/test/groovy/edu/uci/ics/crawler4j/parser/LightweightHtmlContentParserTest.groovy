@@ -0,0 +1,119 @@
+package edu.uci.ics.crawler4j.parser
+
+import edu.uci.ics.crawler4j.crawler.Page
+import edu.uci.ics.crawler4j.url.WebURL
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class LightweightHtmlContentParserTest extends Specification {
+
+    private static HtmlContentHandler parse(String html, String charset = "UTF-8") {
+        Page page = new Page(new WebURL())
+        HtmlContentHandler contentHandler = new HtmlContentHandler()
+        new LightweightHtmlContentParser(null)
+            .parse(page, new ByteArrayInputStream(html.getBytes(charset)), contentHandler)
+        return contentHandler
+    }
+
+    def "links, meta tags and title are extracted"() {
+        when:
+        HtmlContentHandler contentHandler = parse($/<!DOCTYPE html>
+            <html>
+            <head>
+                <title> A &amp; B </title>
+                <meta name="robots" content="noindex, nofollow">
+                <meta http-equiv=refresh content="0;URL=/next">
+                <link rel=stylesheet href=/style.css>
+            </head>
+            <body>
+                <p>Some &lt;text&gt;</p>
+                <a href="x.html?a=1&amp;b=2" class=c>Link <b>one</b></a>
+                <A HREF='y.html'>two<a href=z.html>three</a>
+                <img src=image.png>
+                <script src=script.js>document.write('<a href="no.html">')</script>
+                <!-- <a href="comment.html"> -->
+                <iframe src=frame.html></iframe>
+            </body>
+            </html>/$)
+
+        then:
+        contentHandler.getTitle() == "A & B"
+        contentHandler.getMetaTags() == [robots: "noindex, nofollow", refresh: "0;URL=/next"]
+        contentHandler.getBodyText().contains("Some <text>")
+        contentHandler.getOutgoingUrls().collect { [it.tag, it.href, it.anchor] } == [
+            ["meta", "/next", null],
+            ["link", "/style.css", null],
+            ["a", "x.html?a=1&b=2", "Link one"],
+            ["a", "y.html", "two"],
+            ["a", "z.html", "three"],
+            ["img", "image.png", null],
+            ["script", "script.js", null],
+            ["iframe", "frame.html", null]]
+        contentHandler.getOutgoingUrls()[2].attributes == [href: "x.html?a=1&b=2", class: "c"]
+    }
+
+    @Unroll
+    def "malformed html #html is tolerated"() {
+        when:
+        HtmlContentHandler contentHandler = parse(html)
+
+        then:
+        contentHandler.getOutgoingUrls()*.href == hrefs
+
+        where:
+        html                            | hrefs
+        "<a href=\"unterminated"        | ["unterminated"]
+        "no body <a href=q>anchor</a>"  | ["q"]
+        "a < b <a href=c>"              | ["c"]
+        "<a"                            | []
+        "<"                             | []
+        "<!-- <a href=x>"               | []
+    }
+
+    def "the charset is taken from the meta tags"() {
+        when:
+        HtmlContentHandler contentHandler =
+            parse("<meta charset=\"iso-8859-1\"><a href=\"caf\u00e9\">x</a>", "ISO-8859-1")
+
+        then:
+        contentHandler.getOutgoingUrls()*.href == ["caf\u00e9"]
+    }
+
+    def "pages which are larger than the buffer are parsed while they are read"() {
+        given: "a page whose tags and script cross the ends of the buffer"
+        StringBuilder html = new StringBuilder("<title>Big</title>")
+        (1..2000).each {
+            html.append("<a href=\"page-${it}.html\" title=\"${'t' * (it % 50)}\">${it}</a> ")
+        }
+        html.append("<script>").append("x < y; " * 5000).append("</script><a href=last.html>")
+
+        when:
+        HtmlContentHandler contentHandler = parse(html.toString())
+
+        then:
+        contentHandler.getTitle() == "Big"
+        contentHandler.getOutgoingUrls()*.href ==
+            (1..2000).collect { "page-${it}.html".toString() } + ["last.html"]
+        contentHandler.getOutgoingUrls()[1999].anchor == "2000"
+        !contentHandler.getBodyText().contains("x < y")
+    }
+
+    @Unroll
+    def "pages in #charset are parsed by the fallback parser"() {
+        given:
+        HtmlContentParser fallbackParser = Mock()
+        Page page = new Page(new WebURL())
+        page.setContentCharset(charset)
+
+        when:
+        new LightweightHtmlContentParser(fallbackParser).parse(
+            page, new ByteArrayInputStream("<a href=x>\u65e5\u672c</a>".getBytes(charset)),
+            new HtmlContentHandler())
+
+        then:
+        1 * fallbackParser.parse(page, _, _)
+
+        where:
+        charset << ["ISO-2022-JP", "Shift_JIS", "UTF-16"]
+    }
+}
@@ -0,0 +1,202 @@
+package edu.uci.ics.crawler4j.parser
+
+import java.nio.charset.StandardCharsets
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import edu.uci.ics.crawler4j.crawler.Page
+import edu.uci.ics.crawler4j.url.WebURL
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ParserTest extends Specification {
+
+    static final String HTML = $/<html>
+        <head>
+            <title>A title</title>
+            <meta name="robots" content="noindex">
+        </head>
+        <body>
+            <p>Some text in the body of the page.</p>
+            <a href="page.html">a link</a>
+        </body>
+    </html>/$
+
+    static final String LINKS_HTML = $/<html>
+        <head>
+            <title>Links</title>
+            <link rel="alternate" href="/feed.xml">
+        </head>
+        <body>
+            <ul>
+                <li><a href="/one">One</a></li>
+                <li><a href="two?x=1&amp;y=2">Two <em>too</em></a></li>
+                <li><a href="http://other.example.org/">Other</a></li>
+            </ul>
+            <img src="/logo.png">
+            <iframe src="frame.html"></iframe>
+        </body>
+    </html>/$
+
+    private static Page page(String html) {
+        WebURL url = new WebURL()
+        url.setURL("http://www.example.com/a/index.html")
+        Page page = new Page(url)
+        page.setContentType("text/html; charset=UTF-8")
+        page.setContentCharset("UTF-8")
+        page.setContentData(html.getBytes("UTF-8"))
+        return page
+    }
+
+    def "html pages are fully parsed by default"() {
+        given:
+        Parser parser = new Parser(new CrawlConfig())
+        Page page = page(HTML)
+
+        when:
+        parser.parse(page, page.getWebURL().getURL())
+        HtmlParseData parseData = (HtmlParseData) page.getParseData()
+
+        then:
+        parseData.getHtml() == HTML
+        parseData.getText().contains("Some text in the body of the page.")
+        parseData.getTitle() == "A title"
+        parseData.getMetaTagValue("robots") == "noindex"
+        parseData.getOutgoingUrls()*.getURL() == ["http://www.example.com/a/page.html"]
+        parseData.getOutgoingUrls()*.getAnchor() == ["a link"]
+        page.getLanguage() != null
+    }
+
+    def "only the links of html pages are extracted in the links only profile"() {
+        given:
+        Parser parser = new Parser(new CrawlConfig(linksOnlyParse: true))
+        Page page = page(HTML)
+
+        when:
+        parser.parse(page, page.getWebURL().getURL())
+        HtmlParseData parseData = (HtmlParseData) page.getParseData()
+
+        then:
+        parseData.getText() == ""
+        parseData.getHtml() == HTML
+        parseData.getMetaTagValue("robots") == "noindex"
+        parseData.getOutgoingUrls()*.getURL() == ["http://www.example.com/a/page.html"]
+        parseData.getOutgoingUrls()*.getAnchor() == ["a link"]
+        page.getLanguage() == null
+    }
+
+    @Unroll
+    def "language detection #languageDetection with max length #maxLength"() {
+        given:
+        Parser eagerParser = new Parser(new CrawlConfig())
+        Parser parser = new Parser(new CrawlConfig(languageDetection: languageDetection,
+                                                   languageDetectionMaxLength: maxLength))
+        Page eagerPage = page(HTML)
+        Page page = page(HTML)
+
+        when:
+        eagerParser.parse(eagerPage, eagerPage.getWebURL().getURL())
+        parser.parse(page, page.getWebURL().getURL())
+
+        then:
+        eagerPage.getLanguage() != null
+        page.getLanguage() == (sameLanguage ? eagerPage.getLanguage() : null)
+
+        where:
+        languageDetection          | maxLength | sameLanguage
+        LanguageDetection.EAGER    | 1000      | true
+        LanguageDetection.DEFERRED | 0         | true
+        LanguageDetection.OFF      | 0         | false
+    }
+
+    @Unroll
+    def "lightweight parser extracts the same links as Tika from the #name page"() {
+        given:
+        Parser tikaParser = new Parser(new CrawlConfig())
+        Parser lightweightParser =
+            new Parser(new CrawlConfig(htmlParserType: HtmlParserType.LIGHTWEIGHT))
+        Page tikaPage = page(html)
+        Page lightweightPage = page(html)
+
+        when:
+        tikaParser.parse(tikaPage, tikaPage.getWebURL().getURL())
+        lightweightParser.parse(lightweightPage, lightweightPage.getWebURL().getURL())
+        HtmlParseData tikaData = (HtmlParseData) tikaPage.getParseData()
+        HtmlParseData lightweightData = (HtmlParseData) lightweightPage.getParseData()
+
+        then:
+        lightweightData.getTitle() == tikaData.getTitle()
+        lightweightData.getMetaTags() == tikaData.getMetaTags()
+        links(lightweightData) == links(tikaData)
+
+        where:
+        name     | html
+        "simple" | HTML
+        "links"  | LINKS_HTML
+        "nobody" | "<title>No body</title><a href=\"x.html\">x</a> text"
+    }
+
+    private static Set<List<String>> links(HtmlParseData parseData) {
+        return parseData.getOutgoingUrls().collect { [it.getURL(), it.getAnchor()] } as Set
+    }
+
+    def "html is decoded from the content on first access"() {
+        given:
+        HtmlParseData parseData = new HtmlParseData()
+        parseData.setHtmlContent("<p>caf\u00e9</p>".getBytes("ISO-8859-1"),
+                                 StandardCharsets.ISO_8859_1)
+        parseData.setBodyText(new StringBuilder("  caf\u00e9 "))
+
+        expect:
+        parseData.getHtml() == "<p>caf\u00e9</p>"
+        parseData.getText() == "caf\u00e9"
+        parseData.toString() == "caf\u00e9"
+    }
+
+    def "a parser can be reused for several pages"() {
+        given:
+        Parser parser = new Parser(new CrawlConfig(collectParseMetrics: true))
+        Page first = page(HTML)
+        Page second = page(LINKS_HTML)
+
+        when:
+        parser.parse(first, first.getWebURL().getURL())
+        parser.parse(second, second.getWebURL().getURL())
+        HtmlParseData parseData = (HtmlParseData) first.getParseData()
+
+        then:
+        parseData.getText().contains("Some text in the body of the page.")
+        !parseData.getText().contains("Other")
+        parseData.getOutgoingUrls()*.getURL() == ["http://www.example.com/a/page.html"]
+        parser.getParseMetrics().getParsedPages() == 2
+        !ParseMetrics.isAllocatedBytesSupported() ||
+            parser.getParseMetrics().getLastPageAllocatedBytes() > 0
+    }
+
+    @Unroll
+    def "the rel attribute of links is kept if nofollow is respected: #respectNoFollow"() {
+        given:
+        Parser parser = new Parser(new CrawlConfig(linkAttributes: ["href"] as Set,
+                                                   respectNoFollow: respectNoFollow))
+        Page page = page(LINKS_HTML)
+
+        when:
+        parser.parse(page, page.getWebURL().getURL())
+        WebURL feed = ((HtmlParseData) page.getParseData()).getOutgoingUrls().find {
+            it.getURL().endsWith("/feed.xml")
+        }
+
+        then:
+        feed.getAttribute("rel") == rel
+        feed.getAttribute("href") == "/feed.xml"
+
+        where:
+        respectNoFollow | rel
+        true            | "alternate"
+        false           | ""
+    }
+
+    def "parse metrics are not collected by default"() {
+        expect:
+        new Parser(new CrawlConfig()).getParseMetrics() == null
+    }
+}
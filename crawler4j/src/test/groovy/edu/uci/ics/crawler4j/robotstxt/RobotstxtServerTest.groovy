@@ -0,0 +1,37 @@
+package edu.uci.ics.crawler4j.robotstxt
+
+import edu.uci.ics.crawler4j.url.WebURL
+import spock.lang.Specification
+
+class RobotstxtServerTest extends Specification {
+
+    def "crawl delay of the best matching user agent is taken from the cache"() {
+        given:
+        RobotstxtConfig config = new RobotstxtConfig()
+        config.setMaxCrawlDelay(5000)
+        RobotstxtServer server = new RobotstxtServer(config, null)
+
+        and: "cached robots.txt files of two hosts"
+        server.host2directivesCache.put("www.example.com", RobotstxtParser.parse(
+            "User-agent: *\nCrawl-delay: 1\n\nUser-agent: crawler4j\nCrawl-delay: 2.5\n", config))
+        server.host2directivesCache.put("slow.example.com", RobotstxtParser.parse(
+            "User-agent: *\nCrawl-delay: 3600\n", config))
+
+        expect:
+        server.getCrawlDelay(newUrl("http://www.example.com/page.html")) == 2500
+        server.getCrawlDelay(newUrl("http://slow.example.com/page.html")) == 5000
+        server.getCrawlDelay(newUrl("http://unknown.example.com/page.html")) == 0
+
+        when: "crawl delays are not respected"
+        config.setRespectCrawlDelay(false)
+
+        then:
+        server.getCrawlDelay(newUrl("http://www.example.com/page.html")) == 0
+    }
+
+    private static WebURL newUrl(String url) {
+        WebURL webURL = new WebURL()
+        webURL.setURL(url)
+        return webURL
+    }
+}
@@ -0,0 +1,93 @@
+package edu.uci.ics.crawler4j.url
+
+import java.nio.charset.StandardCharsets
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CanonicalURLCacheTest extends Specification {
+
+    @Unroll
+    def "#href in #context is canonicalized as without the cache"() {
+        given:
+        CanonicalURLCache cache = new CanonicalURLCache(100)
+
+        expect:
+        contexts.each { String c ->
+            assert cache.getCanonicalURL(href, c, StandardCharsets.UTF_8) ==
+                   URLCanonicalizer.getCanonicalURL(href, c, StandardCharsets.UTF_8)
+        }
+
+        where:
+        href             | contexts
+        "page.html"      | ["http://www.example.com/a/b.html", "http://www.example.com/a/c?q=1"]
+        "../up.html"     | ["http://www.example.com/a/b/", "http://www.example.com/a/b/c#top"]
+        "/root.html"     | ["http://www.example.com", "http://www.example.com?q=1"]
+        "x"              | ["http://www.example.com?q=/a/b", "http://www.example.com#/a/b"]
+        "y"              | ["http://www.example.com/a;p=/b", "http://www.example.com/a;p=/c"]
+        "?page=2"        | ["http://www.example.com/a/b", "http://www.example.com/a/c"]
+        "#top"           | ["http://www.example.com/a/b", "http://www.example.com/a/c"]
+        ";jsessionid=1"  | ["http://www.example.com/a/b", "http://www.example.com/a/c"]
+        "http://b.com/"  | ["http://www.example.com/a/b", "http://www.example.com/c/d"]
+        "javascript:x()" | ["http://www.example.com/a/b", "http://www.example.com/a/c"]
+    }
+
+    def "hrefs in the same directory are served from the cache"() {
+        given:
+        CanonicalURLCache cache = new CanonicalURLCache(100)
+
+        when:
+        String first = cache.getCanonicalURL("about.html", "http://www.example.com/a/b.html",
+                                             StandardCharsets.UTF_8)
+        String second = cache.getCanonicalURL("about.html", "http://www.example.com/a/c?q=1",
+                                              StandardCharsets.UTF_8)
+        String other = cache.getCanonicalURL("about.html", "http://www.example.com/b/c.html",
+                                             StandardCharsets.UTF_8)
+
+        then:
+        first == "http://www.example.com/a/about.html"
+        second == first
+        other == "http://www.example.com/b/about.html"
+        cache.getHitCount() == 1
+        cache.getMissCount() == 2
+    }
+
+    def "hrefs relative to the query are not cached"() {
+        given:
+        CanonicalURLCache cache = new CanonicalURLCache(100)
+
+        when:
+        String first = cache.getCanonicalURL("?page=2", "http://www.example.com/a/b.html",
+                                             StandardCharsets.UTF_8)
+        String second = cache.getCanonicalURL("?page=2", "http://www.example.com/a/c.html",
+                                              StandardCharsets.UTF_8)
+
+        then:
+        first == "http://www.example.com/a/b.html?page=2"
+        second == "http://www.example.com/a/c.html?page=2"
+        cache.size() == 0
+    }
+
+    def "hrefs without a charset are cached apart from those with one"() {
+        given:
+        CanonicalURLCache cache = new CanonicalURLCache(100)
+
+        when:
+        String first = cache.getCanonicalURL("a.html?q=\u00e9", "http://www.example.com/a/b.html",
+                                             null)
+        String second = cache.getCanonicalURL("a.html?q=\u00e9", "http://www.example.com/a/c.html",
+                                              null)
+        String utf8 = cache.getCanonicalURL("a.html?q=\u00e9", "http://www.example.com/a/b.html",
+                                            StandardCharsets.UTF_8)
+
+        then:
+        first == URLCanonicalizer.getCanonicalURL("a.html?q=\u00e9",
+                                                  "http://www.example.com/a/b.html", null)
+        second == first
+        utf8 == URLCanonicalizer.getCanonicalURL("a.html?q=\u00e9",
+                                                 "http://www.example.com/a/b.html",
+                                                 StandardCharsets.UTF_8)
+        cache.getHitCount() == 1
+        cache.getMissCount() == 2
+    }
+}
@@ -0,0 +1,53 @@
+package edu.uci.ics.crawler4j.url
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class TLDListTest extends Specification {
+
+    def setupSpec() {
+        TLDList.setUseOnline(false)
+    }
+
+    @Unroll
+    def "#domain is a public suffix: #expected"() {
+        expect:
+        TLDList.getInstance().contains(domain) == expected
+
+        where:
+        domain             | expected
+        "com"              | true
+        "co.uk"            | true
+        "example.com"      | false
+        "pvt.k12.ma.us"    | true
+        "anything.ck"      | true
+        "www.ck"           | false
+        "xn--55qx5d.cn"    | true
+        "unknowntld"       | false
+    }
+
+    @Unroll
+    def "registrable domain of #host is #registrableDomain"() {
+        given:
+        String url = "http://" + host + "/"
+
+        when:
+        int start = TLDList.getInstance().getRegistrableDomainStart(url, 7, url.length() - 1)
+
+        then:
+        (start < 0 ? null : url.substring(start, url.length() - 1)) == registrableDomain
+
+        where:
+        host                      | registrableDomain
+        "www.example.com"         | "example.com"
+        "example.com"             | "example.com"
+        "news.bbc.co.uk"          | "bbc.co.uk"
+        "a.b.pvt.k12.ma.us"       | "b.pvt.k12.ma.us"
+        "www.city.kawasaki.jp"    | "city.kawasaki.jp"
+        "foo.bar.kawasaki.jp"     | "foo.bar.kawasaki.jp"
+        "a.www.ck"                | "www.ck"
+        "www.example.unknowntld"  | "example.unknowntld"
+        "co.uk"                   | null
+        "com"                     | null
+    }
+}
@@ -0,0 +1,89 @@
+package edu.uci.ics.crawler4j.url
+
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+
+import spock.lang.Specification
+
+/**
+ * Compares the fast path of the canonicalizer with the general canonicalization on urls
+ * built from randomly picked parts, many of which need special treatment.
+ */
+class URLCanonicalizerFuzzTest extends Specification {
+
+    static final List<String> SCHEMES = ["http://", "https://", "HTTP://", "hTTps://", "ftp://",
+                                         "mailto:", "javascript:", "", "//"]
+    static final List<String> CONTEXT_SCHEMES = ["http://", "https://", "HTTP://"]
+    static final List<String> HOSTS = ["www.example.com", "Example.COM", "example.com:80",
+                                       "example.com:443", "example.com:8080", "example.com:",
+                                       "example.com:0080", "a_b.example.org", "user@example.com",
+                                       "", "[::1]", "exa mple.com", "ex%41mple.com"]
+    static final List<String> SEGMENTS = ["a", "b.html", ".", "..", "", "%7E", "%7e", "%zz", "%2",
+                                          "a b", "~x", "a;p=1", "\\", "ü", "A*B", "x:y", "a@b",
+                                          "it's", "(1)", "%2F", "...", ".a", "a.", "+", "%257E"]
+    static final List<String> PARAMS = ["a=1", "A=", "=b", "", "=", "jsessionid=x", "JSESSIONID=y",
+                                        "PhpSessId=1", "a=2", "q=a+b", "x=/y", "p=100%", "s=a*b",
+                                        "t=~", "u=a=b", "v", "w=%41", "k=a b", "n=ü", "m=!\$'()",
+                                        "z=?x", "y=a;b", "c=\"q\"", "d=[1]"]
+    static final List<String> HREFS = ["", "/x", "x/y", "?q=1", "#f", "../a", "./a", "//other.com/x",
+                                       "mailto:a@b", "x:y", "a/b:c", "/..", "/../a", "y", "y/", ";p",
+                                       "a;p?x=1", "?", "#", "/x?a=1#f", "..", ".", "a/./b", "a//b",
+                                       " /x ", "x y", "javascript:void(0)", "/a#b?c"]
+    static final List<Charset> CHARSETS = [StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1,
+                                           Charset.forName("gb2312"), StandardCharsets.UTF_16,
+                                           null]
+
+    Random random = new Random(42)
+
+    def "fast path gives the same canonical urls as the general canonicalization"() {
+        given:
+        int fast = 0
+        List<String> mismatches = []
+
+        when:
+        100000.times {
+            String href
+            String context
+            if (random.nextBoolean()) {
+                href = randomUrl(SCHEMES)
+                context = random.nextBoolean() ? null : randomUrl(CONTEXT_SCHEMES)
+            } else {
+                href = pick(HREFS) + (random.nextBoolean() ? pick(SEGMENTS) : "")
+                context = randomUrl(CONTEXT_SCHEMES)
+            }
+            Charset charset = pick(CHARSETS)
+            String canonical = URLCanonicalizer.getCanonicalURLFast(href, context, charset)
+            if (canonical != null) {
+                fast++
+                String expected = URLCanonicalizer.getCanonicalURLSlow(href, context, charset)
+                if (canonical != expected) {
+                    mismatches << "${href} in ${context} (${charset}): ${canonical} != ${expected}"
+                }
+            }
+        }
+
+        then:
+        mismatches.isEmpty()
+        fast > 5000
+    }
+
+    private String randomUrl(List<String> schemes) {
+        StringBuilder sb = new StringBuilder(pick(schemes)).append(pick(HOSTS))
+        random.nextInt(4).times { sb.append('/').append(pick(SEGMENTS)) }
+        if (random.nextInt(3) == 0) {
+            sb.append('/')
+        }
+        if (random.nextBoolean()) {
+            sb.append('?')
+            sb.append((0..<random.nextInt(4)).collect { pick(PARAMS) }.join('&'))
+        }
+        if (random.nextInt(4) == 0) {
+            sb.append('#frag')
+        }
+        return sb.toString()
+    }
+
+    private <T> T pick(List<T> values) {
+        return values[random.nextInt(values.size())]
+    }
+}
@@ -0,0 +1,50 @@
+package edu.uci.ics.crawler4j.url
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class WebURLTest extends Specification {
+
+    def setupSpec() {
+        TLDList.setUseOnline(false)
+    }
+
+    @Unroll
+    def "#url has domain #domain, sub-domain #subDomain and path #path"() {
+        given:
+        WebURL webURL = new WebURL()
+        webURL.setURL(url)
+
+        expect:
+        webURL.domain == domain
+        webURL.subDomain == subDomain
+        webURL.path == path
+        webURL.host == host
+
+        where:
+        url                                 | domain             | subDomain | path          | host
+        "http://www.example.com/sample.htm" | "example.com"      | "www"     | "/sample.htm" | "www.example.com"
+        "http://example.com"                | "example.com"      | ""        | ""            | "example.com"
+        "http://a.b.example.com/x/y?q=/z"   | "example.com"      | "a.b"     | "/x/y"        | "a.b.example.com"
+        "http://news.bbc.co.uk/sport/"      | "bbc.co.uk"        | "news"    | "/sport/"     | "news.bbc.co.uk"
+        "http://www.example.com:8080/index" | "example.com:8080" | "www"     | "/index"      | "www.example.com:8080"
+        "http://www.example.com./"          | "example.com"      | "www"     | "/"           | "www.example.com"
+        "http://a.b.pvt.k12.ma.us/"         | "b.pvt.k12.ma.us"  | "a"       | "/"           | "a.b.pvt.k12.ma.us"
+        "http://www.city.kawasaki.jp/"      | "city.kawasaki.jp" | "www"     | "/"           | "www.city.kawasaki.jp"
+    }
+
+    def "domain is parsed again when the url changes"() {
+        given:
+        WebURL webURL = new WebURL()
+        webURL.setURL("http://www.example.com/")
+
+        when:
+        webURL.getDomain()
+        webURL.setURL("http://blog.example.org/post")
+
+        then:
+        webURL.domain == "example.org"
+        webURL.subDomain == "blog"
+        webURL.path == "/post"
+    }
+}
@@ -0,0 +1,66 @@
+package edu.uci.ics.crawler4j.util
+
+import spock.lang.Specification
+
+class SimHashTest extends Specification {
+
+    private static long simHash(String text) {
+        return SimHash.compute(text.getBytes("UTF-8"))
+    }
+
+    def "similar contents have close fingerprints"() {
+        given:
+        String text = (1..300).collect { "word$it" }.join(" ")
+
+        expect:
+        simHash(text) == simHash(text.toUpperCase().replace(" ", "\n"))
+        SimHash.distance(simHash(text), simHash("Updated: " + text)) <= 3
+        SimHash.distance(simHash(text), simHash((301..600).collect { "term$it" }.join(" "))) > 3
+    }
+
+    def "markup and repeated words do not change the fingerprint"() {
+        given:
+        String text = (1..300).collect { "word$it" }.join(" ")
+
+        expect:
+        simHash(text) == simHash("<html><head><style>p { color: red }</style></head>" +
+            "<body><!-- page --><p class=\"text\">${text} ${text}</p>" +
+            "<script>var text = 'script';</script></body></html>")
+    }
+
+    def "different texts in the same large template have distant fingerprints"() {
+        given:
+        String first = (1..200).collect { "word$it" }.join(" ")
+        String second = (1..200).collect { "term$it" }.join(" ")
+
+        expect:
+        SimHash.distance(simHash(templated(first)), simHash(templated(second))) > 3
+        SimHash.distance(simHash(templated(first)), simHash(templated("Updated " + first))) <= 3
+    }
+
+    def "contents with too few words are not fingerprinted"() {
+        given:
+        byte[] text = (1..10).collect { "word$it word$it" }.join(" ").getBytes("UTF-8")
+        byte[] markup = "<html><body><img src=\"a.png\"></body></html>".getBytes("UTF-8")
+
+        expect:
+        SimHash.compute(text, 0, text.length, 10).getAsLong() == SimHash.compute(text)
+        !SimHash.compute(text, 0, text.length, 11).isPresent()
+        !SimHash.compute(markup, 0, markup.length, 1).isPresent()
+        SimHash.compute(markup) == 0
+    }
+
+    /**
+     * @return a page with a navigation and many ad slots around the given text
+     */
+    static String templated(String text) {
+        StringBuilder html = new StringBuilder("<html><body><ul class=\"nav\">")
+        ["Home", "News", "Sports", "Weather", "Contact"].each {
+            html.append("<li class=\"nav-item\"><a class=\"nav-link\" href=\"/${it}\">")
+                .append(it).append("</a></li>")
+        }
+        200.times { html.append("<div class=\"wrapper row\"><span class=\"ad\"></span></div>") }
+        return html.append("<div class=\"article\">").append(text).append("</div></body></html>")
+                   .toString()
+    }
+}
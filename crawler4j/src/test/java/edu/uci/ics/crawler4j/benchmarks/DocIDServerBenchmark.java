@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.frontier.DocIDServer;
+import edu.uci.ics.crawler4j.util.IO;
+
+/**
+ * Measures how docid lookups and assignments scale with the number of crawler threads,
+ * for different numbers of docid shards. The environment is set up like the one of a
+ * non-resumable crawl. Every invocation looks up a URL which has been seen before and
+ * assigns a docid to a new one.
+ *
+ * Run it from the test classpath with different thread counts, e.g.:
+ * org.openjdk.jmh.Main DocIDServerBenchmark -t 1 and -t 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocIDServerBenchmark {
+
+    private static final int SEEN_URLS = 100000;
+
+    @Param({"1", "4", "16"})
+    public int shards;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private File folder;
+    private Environment env;
+    private DocIDServer docIdServer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("crawler4j-benchmark").toFile();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(false);
+        envConfig.setLocking(false);
+        env = new Environment(folder, envConfig);
+
+        CrawlConfig config = new CrawlConfig();
+        config.setDocIdShards(shards);
+        docIdServer = new DocIDServer(env, config);
+        for (int i = 0; i < SEEN_URLS; i++) {
+            docIdServer.getOrAssignDocId(url(i));
+        }
+        counter.set(SEEN_URLS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        docIdServer.close();
+        env.close();
+        IO.deleteFolder(folder);
+    }
+
+    private static String url(long i) {
+        return "http://www.example.com/some/path/page-" + i + ".html";
+    }
+
+    @Benchmark
+    public int lookupAndAssign() {
+        long next = counter.getAndIncrement();
+        int seenDocId = docIdServer.getDocId(url(next % SEEN_URLS));
+        return seenDocId + docIdServer.getOrAssignDocId(url(next));
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import edu.uci.ics.crawler4j.crawler.Page;
+import edu.uci.ics.crawler4j.parser.HtmlContentHandler;
+import edu.uci.ics.crawler4j.parser.LightweightHtmlContentParser;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Measures the content handler on its own, by replaying the elements of a page which have
+ * been recorded beforehand. Run with {@code -prof gc} to see the allocations per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlContentHandlerBenchmark {
+
+    private static final int LINKS_PER_PAGE = 300;
+
+    /** An element of a page, which is replayed to the content handler */
+    private interface Event {
+        void replay(HtmlContentHandler handler) throws SAXException;
+    }
+
+    /** Records the elements of a page instead of handling them */
+    private static class Recorder extends HtmlContentHandler {
+        private final List<Event> events = new ArrayList<>();
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                                 Attributes attributes) {
+            Attributes copy = new AttributesImpl(attributes);
+            events.add(handler -> handler.startElement(uri, localName, qName, copy));
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            events.add(handler -> handler.endElement(uri, localName, qName));
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            char[] copy = new char[length];
+            System.arraycopy(ch, start, copy, 0, length);
+            events.add(handler -> handler.characters(copy, 0, copy.length));
+        }
+    }
+
+    @Param({"-1", "1000"})
+    private int maxTextLength;
+
+    @Param({"all", "rel"})
+    private String linkAttributes;
+
+    private List<Event> events;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("<html><head><title>A page</title></head><body>");
+        for (int i = 0; i < LINKS_PER_PAGE; i++) {
+            if (i % 10 == 0) {
+                sb.append("<p>Some text in a paragraph of the page, with <b>bold</b> words\n")
+                  .append("\tand a line break.</p>\n");
+            }
+            sb.append("<a href=\"/article-").append(random.nextInt(10000))
+              .append(".html\" class=\"link\" title=\"An article\" rel=\"bookmark\">\n  Article ")
+              .append(i).append(" <span>with a longer title</span>\n</a>\n");
+        }
+        sb.append("</body></html>");
+
+        Recorder recorder = new Recorder();
+        byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+        new LightweightHtmlContentParser(null)
+            .parse(new Page(new WebURL()), new ByteArrayInputStream(content), recorder);
+        events = recorder.events;
+    }
+
+    @Benchmark
+    public void handlePage(Blackhole blackhole) throws SAXException {
+        Set<String> attributes = "all".equals(linkAttributes) ? null :
+                                 Collections.singleton(linkAttributes);
+        HtmlContentHandler handler = new HtmlContentHandler(maxTextLength, attributes);
+        for (Event event : events) {
+            event.replay(handler);
+        }
+        blackhole.consume(handler.getOutgoingUrls());
+        blackhole.consume(handler.getBodyText());
+    }
+}
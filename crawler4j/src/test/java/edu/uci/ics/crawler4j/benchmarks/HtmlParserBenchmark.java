@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.Page;
+import edu.uci.ics.crawler4j.parser.HtmlParserType;
+import edu.uci.ics.crawler4j.parser.Parser;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Compares the html parsers on a corpus of saved pages, given as a directory of html files
+ * with {@code -p corpus=/path/to/pages}. Without a corpus, generated pages with a few hundred
+ * links, some text and a head with scripts and style sheets are parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlParserBenchmark {
+
+    private static final int GENERATED_PAGES = 20;
+
+    @Param({"TIKA", "LIGHTWEIGHT"})
+    private HtmlParserType parserType;
+
+    @Param({""})
+    private String corpus;
+
+    @Param({"false", "true"})
+    private boolean linksOnly;
+
+    private Parser parser;
+
+    private List<byte[]> pages;
+
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws Exception {
+        CrawlConfig config = new CrawlConfig();
+        config.setHtmlParserType(parserType);
+        config.setLinksOnlyParse(linksOnly);
+        parser = new Parser(config);
+
+        pages = new ArrayList<>();
+        if (corpus.isEmpty()) {
+            Random random = new Random(42);
+            for (int i = 0; i < GENERATED_PAGES; i++) {
+                pages.add(generatePage(random).getBytes("UTF-8"));
+            }
+        } else {
+            File[] files = new File(corpus).listFiles();
+            if (files == null) {
+                throw new IOException("Not a directory: " + corpus);
+            }
+            for (File file : files) {
+                if (file.isFile()) {
+                    pages.add(Files.readAllBytes(file.toPath()));
+                }
+            }
+        }
+    }
+
+    private static String generatePage(Random random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html>\n<head>\n<title>Page ").append(random.nextInt(1000))
+          .append("</title>\n<meta charset=\"utf-8\">\n")
+          .append("<meta name=\"description\" content=\"A generated page\">\n")
+          .append("<link rel=\"stylesheet\" href=\"/css/site.css\">\n")
+          .append("<script src=\"/js/site.js\"></script>\n")
+          .append("<script>var config = { tracking: true, items: [1, 2, 3] };</script>\n")
+          .append("</head>\n<body>\n<div class=\"nav\">\n");
+        for (int i = 0; i < 300; i++) {
+            if (i % 10 == 0) {
+                sb.append("<p>Some text in a paragraph of the page, with <b>bold</b> and ")
+                  .append("<i>italic</i> words &amp; entities.</p>\n");
+            }
+            sb.append("<a href=\"/section-").append(random.nextInt(20)).append("/article-")
+              .append(random.nextInt(10000)).append(".html\" class=\"link\">Article ")
+              .append(i).append("</a>\n");
+        }
+        sb.append("<img src=\"/images/logo.png\" alt=\"logo\">\n</div>\n</body>\n</html>\n");
+        return sb.toString();
+    }
+
+    @Benchmark
+    public void parsePage(Blackhole blackhole) throws Exception {
+        byte[] content = pages.get(next);
+        next = (next + 1) % pages.size();
+
+        WebURL url = new WebURL();
+        url.setURL("http://www.example.com/index.html");
+        Page page = new Page(url);
+        page.setContentType("text/html");
+        page.setContentData(content);
+        parser.parse(page, url.getURL());
+        blackhole.consume(page.getParseData().getOutgoingUrls());
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.uci.ics.crawler4j.url.URLCanonicalizer;
+
+/**
+ * Measures the canonicalization of the links of a page, as done by the parser: a mix of
+ * absolute links, links relative to the page and to the root of the site, query links
+ * and a few links which need their path normalized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class URLCanonicalizerBenchmark {
+
+    private static final int LINKS_PER_PAGE = 200;
+
+    private static final String CONTEXT = "https://www.example.com/news/2018/article-123.html";
+
+    private List<String> hrefs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        hrefs = new ArrayList<>(LINKS_PER_PAGE);
+        for (int i = 0; i < LINKS_PER_PAGE; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    hrefs.add("https://www.example.com/section-" + random.nextInt(10) + "/");
+                    break;
+                case 1:
+                    hrefs.add("/tags/" + random.nextInt(100) + "?page=" + random.nextInt(5));
+                    break;
+                case 2:
+                    hrefs.add("article-" + random.nextInt(1000) + ".html");
+                    break;
+                case 3:
+                    hrefs.add("http://other" + random.nextInt(20) + ".example.org/?ref=news&id=" +
+                              random.nextInt(1000));
+                    break;
+                case 4:
+                    hrefs.add("?comments=" + random.nextInt(100) + "&sort=new#comments");
+                    break;
+                default:
+                    hrefs.add("../../archive/./" + random.nextInt(100) + "/index.html");
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public void canonicalizeLinks(Blackhole blackhole) {
+        for (String href : hrefs) {
+            blackhole.consume(
+                URLCanonicalizer.getCanonicalURL(href, CONTEXT, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Measures the cost of creating the WebURLs of the outgoing links of a page. Most outgoing
+ * links have been seen before and are discarded right after their URL is set, while the
+ * new ones are asked for their host when they are scheduled.
+ *
+ * The links mimic those of a typical page: mostly links within the site, some to other
+ * hosts of the same domain and some to other sites, including multi-label public suffixes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebURLBenchmark {
+
+    private static final int LINKS_PER_PAGE = 1000;
+
+    private static final String[] HOSTS = {
+        "www.example.com", "www.example.com", "www.example.com", "www.example.com",
+        "blog.example.com", "static.cdn.example.com", "news.bbc.co.uk", "en.wikipedia.org",
+        "www.amazon.co.jp", "github.com", "twitter.com", "user.github.io"
+    };
+
+    private List<String> links;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        links = new ArrayList<>(LINKS_PER_PAGE);
+        for (int i = 0; i < LINKS_PER_PAGE; i++) {
+            String host = HOSTS[random.nextInt(HOSTS.length)];
+            String query = random.nextInt(4) == 0 ? "?id=" + random.nextInt(10000) : "";
+            links.add("https://" + host + "/section-" + random.nextInt(20) + "/page-" + i +
+                      ".html" + query);
+        }
+    }
+
+    @Benchmark
+    public void discardedLinks(Blackhole blackhole) {
+        for (String link : links) {
+            WebURL webURL = new WebURL();
+            webURL.setURL(link);
+            blackhole.consume(webURL);
+        }
+    }
+
+    @Benchmark
+    public void scheduledLinks(Blackhole blackhole) {
+        for (String link : links) {
+            WebURL webURL = new WebURL();
+            webURL.setURL(link);
+            blackhole.consume(webURL.getHost());
+            blackhole.consume(webURL.getPath());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+
+import edu.uci.ics.crawler4j.frontier.InProcessPagesDB;
+import edu.uci.ics.crawler4j.frontier.WorkQueues;
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.IO;
+
+/**
+ * Compares handing out a batch of URLs of a resumable crawl the old way (read, then delete
+ * in a second cursor pass, then one transaction per in-process page) with the single pass
+ * {@link WorkQueues#take(int, InProcessPagesDB)}. Each invocation also puts the URLs back
+ * and removes them from the in-process pages, so that the queue stays at a steady size.
+ *
+ * Run it from the test classpath with: org.openjdk.jmh.Main WorkQueuesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkQueuesBenchmark {
+
+    @Param({"10000"})
+    public int queueSize;
+
+    @Param({"50"})
+    public int batchSize;
+
+    private File folder;
+    private Environment env;
+    private WorkQueues workQueues;
+    private InProcessPagesDB inProcessPages;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("crawler4j-benchmark").toFile();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        envConfig.setLocking(true);
+        env = new Environment(folder, envConfig);
+        workQueues = new WorkQueues(env, "PendingURLsDB", true);
+        inProcessPages = new InProcessPagesDB(env);
+        for (int i = 1; i <= queueSize; i++) {
+            WebURL url = new WebURL();
+            url.setURL("http://www.example.com/page-" + i + ".html");
+            url.setDocid(i);
+            workQueues.put(url);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workQueues.close();
+        inProcessPages.close();
+        env.close();
+        IO.deleteFolder(folder);
+    }
+
+    @Benchmark
+    public int getThenDelete() {
+        List<WebURL> urls = workQueues.get(batchSize);
+        workQueues.delete(urls.size());
+        for (WebURL url : urls) {
+            inProcessPages.put(url);
+        }
+        return process(urls);
+    }
+
+    @Benchmark
+    public int singlePassTake() {
+        return process(workQueues.take(batchSize, inProcessPages));
+    }
+
+    private int process(List<WebURL> urls) {
+        for (WebURL url : urls) {
+            inProcessPages.removeURL(url);
+            workQueues.put(url);
+        }
+        return urls.size();
+    }
+}
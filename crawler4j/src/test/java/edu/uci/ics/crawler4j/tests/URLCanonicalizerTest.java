@@ -85,5 +85,9 @@ public class URLCanonicalizerTest {
         assertEquals("http://www.example.com/3.asp?DengJh=%BA%E91700718",
                 URLCanonicalizer.getCanonicalURL("3.asp?DengJh=洪1700718", "http://www.example.com",
                         Charset.forName("gb2312")));
+
+        assertEquals("http://www.example.com/index.html?a=1",
+                     URLCanonicalizer.getCanonicalURL("http://www.example.com/index.html?a=1",
+                                                      null, null));
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package edu.uci.ics.crawler4j.tests.fetcher;
 
 import java.io.IOException;
-import java.util.Date;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpHead;
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
@@ -26,13 +25,7 @@ public class PageFetcherHtmlOnly extends PageFetcher {
         try {
             head = new HttpHead(toFetchURL);
 
-            synchronized (mutex) {
-                long now = new Date().getTime();
-                if (now - this.lastFetchTime < this.config.getPolitenessDelay()) {
-                    Thread.sleep(this.config.getPolitenessDelay() - (now - this.lastFetchTime));
-                }
-                this.lastFetchTime = new Date().getTime();
-            }
+            politenessTracker.acquire(webUrl.getHost(), getPolitenessDelay(webUrl));
 
             HttpResponse response = httpClient.execute(head);
             fetchResult.setEntity(response.getEntity());